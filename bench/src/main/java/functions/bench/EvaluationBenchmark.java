@@ -0,0 +1,45 @@
+package functions.bench;
+
+import functions.TabulatedFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// getFunctionValue в случайных точках таблицы из size точек
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+    @Param
+    public Implementation implementation;
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private TabulatedFunction function;
+    private double[] xs;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        function = Tables.sine(implementation, size);
+        xs = Tables.randomPoints(0, size - 1);
+    }
+
+    @Benchmark
+    public double getFunctionValue() {
+        return function.getFunctionValue(xs[i++ & (Tables.INPUTS - 1)]);
+    }
+}
@@ -0,0 +1,37 @@
+package functions.bench;
+
+import functions.ArrayTabulatedFunction;
+import functions.ArrayTabulatedFunctionExternalizable;
+import functions.LinkedListTabulatedFunction;
+import functions.LinkedListTabulatedFunctionExternalizable;
+import functions.TabulatedFunction;
+
+// Реализация TabulatedFunction; имя константы - значение параметра implementation
+public enum Implementation {
+    ARRAY {
+        @Override
+        TabulatedFunction create(double leftX, double rightX, double[] values) {
+            return new ArrayTabulatedFunction(leftX, rightX, values);
+        }
+    },
+    ARRAY_EXTERNALIZABLE {
+        @Override
+        TabulatedFunction create(double leftX, double rightX, double[] values) {
+            return new ArrayTabulatedFunctionExternalizable(leftX, rightX, values);
+        }
+    },
+    LINKED_LIST {
+        @Override
+        TabulatedFunction create(double leftX, double rightX, double[] values) {
+            return new LinkedListTabulatedFunction(leftX, rightX, values);
+        }
+    },
+    LINKED_LIST_EXTERNALIZABLE {
+        @Override
+        TabulatedFunction create(double leftX, double rightX, double[] values) {
+            return new LinkedListTabulatedFunctionExternalizable(leftX, rightX, values);
+        }
+    };
+
+    abstract TabulatedFunction create(double leftX, double rightX, double[] values);
+}
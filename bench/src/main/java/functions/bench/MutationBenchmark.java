@@ -0,0 +1,62 @@
+package functions.bench;
+
+import functions.FunctionPoint;
+import functions.InappropriateFunctionPointException;
+import functions.TabulatedFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Вставка точки в середину случайного отрезка с удалением её же, чтобы размер таблицы не менялся,
+// и сдвиг X случайной точки не дальше четверти шага от узла сетки, так что порядок точек сохраняется
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationBenchmark {
+    @Param
+    public Implementation implementation;
+    @Param({"1000", "100000"})
+    public int size;
+
+    private TabulatedFunction function;
+    private int[] segments;
+    private int[] indices;
+    private double[] offsets;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        function = Tables.sine(implementation, size);
+        segments = Tables.randomIndices(0, size - 2);
+        indices = Tables.randomIndices(1, size - 2);
+        offsets = Tables.randomPoints(-0.25, 0.25);
+    }
+
+    @Benchmark
+    public int addPointDeletePoint() throws InappropriateFunctionPointException {
+        int segment = segments[i++ & (Tables.INPUTS - 1)];
+        function.addPoint(new FunctionPoint(segment + 0.5, segment));
+        function.deletePoint(segment + 1);
+        return function.getPointsCount();
+    }
+    @Benchmark
+    public int setPointX() throws InappropriateFunctionPointException {
+        int input = i++ & (Tables.INPUTS - 1);
+        int index = indices[input];
+        function.setPointX(index, index + offsets[input]);
+        return index;
+    }
+}
@@ -0,0 +1,42 @@
+package functions.bench;
+
+import functions.TabulatedFunction;
+
+import java.util.Random;
+
+// Общие данные измерений JMH (тех же, что в HotPathBenchmark): таблицы sin на сетке 0, 1, ..., size - 1
+// и заранее подготовленные случайные аргументы, выбираемые по i & (INPUTS - 1).
+// Память на операцию печатает профилировщик -prof gc (gc.alloc.rate.norm, байт/оп).
+// С движком Vector API (сборка с профилем vector):
+//   java -jar bench/target/benchmarks.jar -jvmArgsAppend "--add-modules=jdk.incubator.vector" -prof gc
+final class Tables {
+    static final int INPUTS = 1024;
+
+    private Tables() {
+        throw new AssertionError("Невозможно создать экземпляр класса Tables");
+    }
+
+    static TabulatedFunction sine(Implementation implementation, int size) {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.sin(i);
+        }
+        return implementation.create(0, size - 1, values);
+    }
+    static double[] randomPoints(double from, double to) {
+        Random random = new Random(42);
+        double[] xs = new double[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            xs[i] = from + (to - from) * random.nextDouble();
+        }
+        return xs;
+    }
+    static int[] randomIndices(int from, int to) {
+        Random random = new Random(42);
+        int[] indices = new int[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            indices[i] = from + random.nextInt(to - from + 1);
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,91 @@
+package functions.bench;
+
+import functions.Function;
+import functions.Functions;
+import functions.TabulatedFunction;
+import functions.TabulatedFunctions;
+import functions.basic.Cos;
+import functions.basic.Exp;
+import functions.basic.Sin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Табулирование деревьев functions.meta на [0, 10]. Таблица из 1 000 000 точек заполняется
+// параллельно, и память, выделенная потоками пула, в gc.alloc.rate.norm не попадает
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabulationBenchmark {
+    // Табулируемое дерево; имя константы - значение параметра tree
+    public enum Tree {
+        // sin²(x) + cos²(x)
+        SQUARES_SUM {
+            @Override
+            Function create() {
+                return Functions.sum(Functions.power(new Sin(), 2), Functions.power(new Cos(), 2));
+            }
+        },
+        // exp(3 sin(2x + 2) - 1)
+        EXP_OF_SINE {
+            @Override
+            Function create() {
+                return expOfSine();
+            }
+        },
+        // То же дерево, скомпилированное ExpressionCompiler
+        EXP_OF_SINE_COMPILED {
+            @Override
+            Function create() {
+                return Functions.compile(expOfSine());
+            }
+        },
+        // Сумма 17 синусов
+        SINES_SUM {
+            @Override
+            Function create() {
+                Function deep = new Sin();
+                for (int i = 1; i <= 16; i++) {
+                    deep = Functions.sum(deep, Functions.scale(Functions.shift(new Sin(), i, 0), 1, 1.0 / i));
+                }
+                return deep;
+            }
+        };
+
+        abstract Function create();
+
+        private static Function expOfSine() {
+            return Functions.composition(new Exp(), Functions.shift(Functions.scale(new Sin(), 2, 3), 1, -1));
+        }
+    }
+
+    @Param
+    public Tree tree;
+    @Param({"10000", "1000000"})
+    public int pointsCount;
+
+    private Function function;
+
+    @Setup
+    public void setUp() {
+        function = tree.create();
+    }
+
+    @Benchmark
+    public TabulatedFunction tabulate() {
+        return TabulatedFunctions.tabulate(function, 0, 10, pointsCount);
+    }
+}
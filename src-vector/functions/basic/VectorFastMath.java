@@ -0,0 +1,196 @@
+package functions.basic;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static functions.basic.FastMath.*;
+
+// Пакетные быстрые функции на Vector API: те же формулы, что в FastMath, на дорожках DoubleVector
+// наибольшей длины, которую поддерживает процессор (AVX2 - 4 дорожки, AVX-512 - 8).
+// Умножения и сложения не сливаются в FMA и идут в том же порядке, что в скалярном коде,
+// поэтому значения побитово совпадают с FastMath. Дорожки с аргументами вне быстрого диапазона,
+// NaN и бесконечностями пересчитываются скалярно, как и остаток пакета короче вектора.
+// Класс собирается и работает только с модулем jdk.incubator.vector:
+//   javac --add-modules jdk.incubator.vector -cp <классы src> -d <классы src> src-vector/functions/basic/*.java
+//   java --add-modules jdk.incubator.vector ...
+// Преобразование double -> long (D2L) C2 в JDK 17 не векторизует, поэтому номер
+// четверти берётся из битов x * 2/pi + ROUND: после прибавления ROUND младшие биты
+// мантиссы и есть округлённое целое. Таблица exp читается скалярно: сбор (gather) по массиву
+// номеров C2 в JDK 17 компилирует ненадёжно.
+// FastMath загружает его по имени; если класса или модуля нет, используется скалярный код
+final class VectorFastMath implements FastMath.BatchKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    // Промежуточные массивы exp: номера и многочлены блока, свои у каждого потока
+    private static final int EXP_BLOCK = 512;
+    private static final ThreadLocal<double[][]> EXP_BUFFERS = ThreadLocal.withInitial(() -> new double[2][EXP_BLOCK]);
+    private static final long ROUND_BITS = Double.doubleToRawLongBits(ROUND);
+
+    VectorFastMath() {
+        if (SPECIES.length() < 2) {
+            throw new UnsupportedOperationException("Процессор не поддерживает векторы из нескольких double");
+        }
+    }
+
+    @Override
+    public void sin(double[] xs, double[] out, int from, int len) {
+        trigonometric(xs, out, from, len, 0);
+    }
+    @Override
+    public void cos(double[] xs, double[] out, int from, int len) {
+        trigonometric(xs, out, from, len, 1);
+    }
+    // sin(x + shift pi/2): cos x - та же четверть, сдвинутая на 1
+    private static void trigonometric(double[] xs, double[] out, int from, int len, int shift) {
+        int to = from + len;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector rounded = x.mul(TWO_OVER_PI).add(ROUND);
+            DoubleVector kd = rounded.sub(ROUND);
+            DoubleVector r = reduce(x, kd);
+            DoubleVector s = sinPolynomial(r);
+            DoubleVector c = cosPolynomial(r);
+            LongVector k = rounded.reinterpretAsLongs().sub(ROUND_BITS - shift);
+            VectorMask<Double> odd = k.and(1).compare(VectorOperators.NE, 0).cast(SPECIES);
+            VectorMask<Double> negative = k.and(2).compare(VectorOperators.NE, 0).cast(SPECIES);
+            DoubleVector result = s.blend(c, odd).lanewise(VectorOperators.NEG, negative);
+            DoubleVector abs = x.abs();
+            if (shift == 0) {
+                result = result.blend(x, abs.compare(VectorOperators.LT, TINY));
+            }
+            result.intoArray(out, i);
+            VectorMask<Double> outside = abs.compare(VectorOperators.LE, TRIG_LIMIT).not();
+            if (outside.anyTrue()) {
+                for (int lane = 0; lane < SPECIES.length(); lane++) {
+                    if (outside.laneIsSet(lane)) {
+                        out[i + lane] = shift == 0 ? Math.sin(x.lane(lane)) : Math.cos(x.lane(lane));
+                    }
+                }
+            }
+        }
+        for (; i < to; i++) {
+            out[i] = shift == 0 ? FastMath.sin(xs[i]) : FastMath.cos(xs[i]);
+        }
+    }
+    @Override
+    public void tan(double[] xs, double[] out, int from, int len, double cosEpsilon) {
+        int to = from + len;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector rounded = x.mul(TWO_OVER_PI).add(ROUND);
+            DoubleVector kd = rounded.sub(ROUND);
+            DoubleVector r = reduce(x, kd);
+            DoubleVector s = sinPolynomial(r);
+            DoubleVector c = cosPolynomial(r);
+            LongVector k = rounded.reinterpretAsLongs().sub(ROUND_BITS);
+            VectorMask<Double> odd = k.and(1).compare(VectorOperators.NE, 0).cast(SPECIES);
+            // В нечётной четверти tan x = -cos r / sin r
+            DoubleVector numerator = s.blend(c.neg(), odd);
+            DoubleVector denominator = c.blend(s, odd);
+            DoubleVector result = numerator.div(denominator)
+                    .blend(Double.NaN, denominator.abs().compare(VectorOperators.LE, cosEpsilon));
+            DoubleVector abs = x.abs();
+            result.blend(x, abs.compare(VectorOperators.LT, TINY)).intoArray(out, i);
+            VectorMask<Double> outside = abs.compare(VectorOperators.LE, TRIG_LIMIT).not();
+            if (outside.anyTrue()) {
+                for (int lane = 0; lane < SPECIES.length(); lane++) {
+                    if (outside.laneIsSet(lane)) {
+                        out[i + lane] = FastMath.tan(x.lane(lane), cosEpsilon);
+                    }
+                }
+            }
+        }
+        for (; i < to; i++) {
+            out[i] = FastMath.tan(xs[i], cosEpsilon);
+        }
+    }
+    private static DoubleVector reduce(DoubleVector x, DoubleVector kd) {
+        DoubleVector r = x.sub(kd.mul(PIO2_1));
+        r = r.sub(kd.mul(PIO2_2));
+        r = r.sub(kd.mul(PIO2_3));
+        return r.sub(kd.mul(PIO2_3T));
+    }
+    // Порядок операций - как в FastMath.sinPolynomial и cosPolynomial
+    private static DoubleVector sinPolynomial(DoubleVector r) {
+        DoubleVector z = r.mul(r);
+        DoubleVector w = z.mul(z);
+        DoubleVector p = z.mul(S2).add(S1)
+                .add(w.mul(z.mul(S4).add(S3)))
+                .add(w.mul(w).mul(z.mul(S6).add(S5)));
+        return r.add(r.mul(z).mul(p));
+    }
+    private static DoubleVector cosPolynomial(DoubleVector r) {
+        DoubleVector z = r.mul(r);
+        DoubleVector w = z.mul(z);
+        DoubleVector p = z.mul(C2).add(C1)
+                .add(w.mul(z.mul(C4).add(C3)))
+                .add(w.mul(w).mul(z.mul(C6).add(C5)));
+        return DoubleVector.broadcast(SPECIES, 1).sub(z.mul(0.5)).add(w.mul(p));
+    }
+
+    // Сведение и многочлен - векторами по блоку, таблица и сборка порядка - скалярным проходом,
+    // как в FastMath.exp для блока
+    @Override
+    public void exp(double[] xs, double[] out, int from, int len) {
+        double[][] buffers = EXP_BUFFERS.get();
+        double[] k = buffers[0];
+        double[] p = buffers[1];
+        for (int start = from; start < from + len; start += EXP_BLOCK) {
+            int n = Math.min(EXP_BLOCK, from + len - start);
+            int vectorized = SPECIES.loopBound(n);
+            for (int i = 0; i < vectorized; i += SPECIES.length()) {
+                DoubleVector x = DoubleVector.fromArray(SPECIES, xs, start + i);
+                DoubleVector kd = x.mul(SIXTY_FOUR_OVER_LN2).add(ROUND).sub(ROUND);
+                DoubleVector r = x.sub(kd.mul(LN2_64_HI)).sub(kd.mul(LN2_64_LO));
+                kd.intoArray(k, i);
+                r.add(r.mul(r).mul(r.mul(r.mul(r.mul(1.0 / 120).add(1.0 / 24)).add(1.0 / 6)).add(0.5)))
+                        .intoArray(p, i);
+            }
+            for (int i = 0; i < vectorized; i++) {
+                double x = xs[start + i];
+                out[start + i] = Math.abs(x) <= EXP_LIMIT ? scale((int) k[i], p[i]) : Math.exp(x);
+            }
+            for (int i = start + vectorized; i < start + n; i++) {
+                out[i] = FastMath.exp(xs[i]);
+            }
+        }
+    }
+
+    @Override
+    public void log(double[] xs, double[] out, int from, int len, double factor) {
+        int to = from + len;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            LongVector bits = x.reinterpretAsLongs().add(ONE_BITS - HALF_SQRT2_BITS);
+            DoubleVector e = (DoubleVector) bits.lanewise(VectorOperators.ASHR, 52).sub(1023)
+                    .convert(VectorOperators.L2D, 0);
+            DoubleVector f = bits.and(0x000FFFFFFFFFFFFFL).add(HALF_SQRT2_BITS).reinterpretAsDoubles().sub(1);
+            // FastMath.logPolynomial
+            DoubleVector s = f.div(f.add(2));
+            DoubleVector z = s.mul(s);
+            DoubleVector w = z.mul(z);
+            DoubleVector t1 = w.mul(w.mul(w.mul(LG6).add(LG4)).add(LG2));
+            DoubleVector t2 = z.mul(w.mul(w.mul(w.mul(LG7).add(LG5)).add(LG3)).add(LG1));
+            DoubleVector hfsq = f.mul(0.5).mul(f);
+            DoubleVector log = e.mul(LN2_HI).sub(hfsq.sub(s.mul(hfsq.add(t1).add(t2)).add(e.mul(LN2_LO))).sub(f));
+            log.mul(factor).intoArray(out, i);
+            VectorMask<Double> special = x.compare(VectorOperators.GE, Double.MIN_NORMAL)
+                    .and(x.compare(VectorOperators.LT, Double.POSITIVE_INFINITY)).not();
+            if (special.anyTrue()) {
+                for (int lane = 0; lane < SPECIES.length(); lane++) {
+                    if (special.laneIsSet(lane)) {
+                        out[i + lane] = FastMath.log(x.lane(lane)) * factor;
+                    }
+                }
+            }
+        }
+        for (; i < to; i++) {
+            out[i] = FastMath.log(xs[i]) * factor;
+        }
+    }
+}
@@ -0,0 +1,1137 @@
+import functions.*;
+import functions.basic.*;
+import functions.meta.CachedFunction;
+import functions.meta.ChebyshevApproximation;
+import functions.meta.Simplifier;
+
+public class Benchmark {
+    private static final int QUERIES = 200_000;
+    private static volatile double sink; // Чтобы JIT не выбросил вычисления
+
+    public static void main(String[] args) {
+        System.out.println("=== ПОИСК ОТРЕЗКА ИНТЕРПОЛЯЦИИ (ArrayTabulatedFunction) ===");
+        benchmarkIntervalSearch();
+
+        System.out.println("\n=== ЗАНИМАЕМАЯ ПАМЯТЬ (1 000 000 точек) ===");
+        benchmarkFootprint();
+
+        System.out.println("\n=== ПОИСК И ВСТАВКА В LinkedListTabulatedFunction ===");
+        benchmarkLinkedList();
+
+        System.out.println("\n=== ПАКЕТНОЕ ВЫЧИСЛЕНИЕ getFunctionValues ===");
+        benchmarkBatch();
+
+        System.out.println("\n=== ПЕРЕДИСКРЕТИЗАЦИЯ: УПОРЯДОЧЕННЫЙ ПАКЕТ ===");
+        benchmarkSortedBatch();
+
+        System.out.println("\n=== ПАРАЛЛЕЛЬНОЕ ТАБУЛИРОВАНИЕ ===");
+        benchmarkParallelTabulation();
+
+        System.out.println("\n=== АДАПТИВНОЕ ТАБУЛИРОВАНИЕ (погрешность 1e-4) ===");
+        benchmarkAdaptiveTabulation();
+
+        System.out.println("\n=== УПРОЩЕНИЕ ДЕРЕВЬЕВ ВЫРАЖЕНИЙ ===");
+        benchmarkSimplifier();
+
+        System.out.println("\n=== КОМПИЛЯЦИЯ ДЕРЕВЬЕВ ВЫРАЖЕНИЙ ===");
+        benchmarkCompiler();
+
+        System.out.println("\n=== ГЛУБОКИЕ ДЕРЕВЬЯ: ЗАРАНЕЕ ВЫЧИСЛЕННЫЕ ОБЛАСТИ ОПРЕДЕЛЕНИЯ ===");
+        benchmarkDeepTrees();
+
+        System.out.println("\n=== КЭШИРОВАНИЕ ЗНАЧЕНИЙ (квантование 0.01) ===");
+        benchmarkCache();
+
+        System.out.println("\n=== ОТОБРАЖЕНИЕ ФАЙЛА В ПАМЯТЬ (2 000 000 точек) ===");
+        benchmarkMappedFile();
+
+        System.out.println("\n=== ДВОИЧНЫЙ ВВОД-ВЫВОД: ПОТОКИ И КАНАЛЫ (2 000 000 точек) ===");
+        benchmarkBinaryChannels();
+
+        System.out.println("\n=== ЧТЕНИЕ ТЕКСТОВОГО ФОРМАТА (10 000 000 точек) ===");
+        benchmarkTextParsing();
+
+        System.out.println("\n=== ЗАПИСЬ ТЕКСТОВОГО ФОРМАТА (5 000 000 точек) ===");
+        benchmarkTextWriting();
+
+        System.out.println("\n=== КОМПАКТНЫЙ ДВОИЧНЫЙ ФОРМАТ (2 000 000 точек) ===");
+        benchmarkCompactFormat();
+
+        System.out.println("\n=== СЕРИАЛИЗАЦИЯ (1 000 000 точек) ===");
+        benchmarkSerialization();
+
+        System.out.println("\n=== ДОБАВЛЕНИЕ ТОЧЕК В ArrayTabulatedFunction (200 000 точек) ===");
+        benchmarkBulkInsertion();
+
+        System.out.println("\n=== ПАРАЛЛЕЛЬНОЕ ЧТЕНИЕ ПРИ РЕДКОЙ ЗАПИСИ (10 000 точек) ===");
+        benchmarkConcurrentReads();
+
+        System.out.println("\n=== ВЕРСИИ ТАБУЛИРОВАННОЙ ФУНКЦИИ (10 000 точек, 1 000 версий) ===");
+        benchmarkVersions();
+
+        System.out.println("\n=== СПОСОБЫ ИНТЕРПОЛЯЦИИ ===");
+        benchmarkInterpolation();
+
+        System.out.println("\n=== ПРИБЛИЖЕНИЕ РЯДОМ ЧЕБЫШЁВА ===");
+        benchmarkChebyshev();
+
+        System.out.println("\n=== БЫСТРЫЕ БАЗОВЫЕ ФУНКЦИИ (2 000 000 точек) ===");
+        benchmarkFastFunctions();
+
+        System.out.println("\n=== ПАКЕТНОЕ ВЫЧИСЛЕНИЕ ПО БЛОКАМ (2 000 000 точек) ===");
+        benchmarkBlockKernels();
+    }
+
+    private static void benchmarkIntervalSearch() {
+        int[] sizes = {100, 1_000, 10_000, 100_000, 200_000};
+        IntervalSearch[] modes = IntervalSearch.values();
+
+        System.out.printf("%-10s", "Точек");
+        for (IntervalSearch mode : modes) {
+            System.out.printf("%18s", mode + ", нс");
+        }
+        System.out.printf("%14s%n", "Ускорение");
+        System.out.println("------------------------------------------------------------------------------");
+
+        for (int size : sizes) {
+            ArrayTabulatedFunction function = (ArrayTabulatedFunction) TabulatedFunctions.tabulate(new Sin(), 0, 100, size);
+            double[] xs = randomPoints(QUERIES, 0, 100);
+
+            double[] expected = null;
+            double[] times = new double[modes.length];
+            for (int m = 0; m < modes.length; m++) {
+                function.setSearchMode(modes[m]);
+                // Линейный поиск на больших таблицах слишком медленный, ограничиваем число запросов
+                int queries = modes[m] == IntervalSearch.LINEAR ? Math.min(QUERIES, 20_000_000 / size) : QUERIES;
+                times[m] = measure(function, xs, queries);
+
+                // Результаты всех способов должны совпадать побитово
+                double[] values = new double[queries];
+                for (int i = 0; i < queries; i++) {
+                    values[i] = function.getFunctionValue(xs[i]);
+                }
+                if (expected == null) {
+                    expected = values;
+                }
+                for (int i = 0; i < Math.min(values.length, expected.length); i++) {
+                    if (Double.doubleToLongBits(values[i]) != Double.doubleToLongBits(expected[i])) {
+                        throw new IllegalStateException("Результат " + modes[m] + " отличается в точке x=" + xs[i]);
+                    }
+                }
+            }
+
+            System.out.printf("%-10d", size);
+            for (double time : times) {
+                System.out.printf("%18.1f", time);
+            }
+            System.out.printf("%13.1fx%n", times[0] / times[1]);
+        }
+    }
+
+    private static void benchmarkFootprint() {
+        int size = 1_000_000;
+
+        // Прежнее хранение: отдельный объект FunctionPoint на каждую точку
+        long before = usedMemory();
+        FunctionPoint[] points = new FunctionPoint[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = new FunctionPoint(i, Math.sin(i));
+        }
+        long objectsBytes = usedMemory() - before;
+
+        // Текущее хранение: параллельные массивы double[]
+        before = usedMemory();
+        TabulatedFunction function = new ArrayTabulatedFunction(points);
+        long arraysBytes = usedMemory() - before;
+
+        System.out.printf("FunctionPoint[]:        %8.1f МБ (%.1f байт на точку)%n", objectsBytes / 1048576.0, (double) objectsBytes / size);
+        System.out.printf("double[] x + double[] y: %7.1f МБ (%.1f байт на точку)%n", arraysBytes / 1048576.0, (double) arraysBytes / size);
+        System.out.printf("Экономия: %.1fx%n", (double) objectsBytes / arraysBytes);
+        sink = points.length + function.getPointsCount();
+    }
+    private static void benchmarkLinkedList() {
+        int[] sizes = {100, 1_000, 10_000, 50_000};
+        System.out.printf("%-10s%18s%18s%18s%18s%n", "Точек", "Проход, нс", "Индекс, нс", "Вставка, нс", "С индексом, нс");
+        System.out.println("------------------------------------------------------------------------------------");
+
+        for (int size : sizes) {
+            LinkedListTabulatedFunction function = new LinkedListTabulatedFunction(0, 100, new double[size]);
+            double[] xs = randomPoints(QUERIES, 0, 100);
+            int queries = Math.min(QUERIES, 20_000_000 / size);
+            double walk = measure(function, xs, queries);
+            function.setSkipIndexEnabled(true);
+            double indexed = measure(function, xs, QUERIES);
+
+            System.out.printf("%-10d%18.1f%18.1f%18.1f%18.1f%n", size, walk, indexed,
+                    measureInsertion(size, false), measureInsertion(size, true));
+        }
+    }
+    // Среднее время addPoint при заполнении списка точками в случайном порядке
+    private static double measureInsertion(int size, boolean indexed) {
+        double[] xs = randomPoints(size, 0, 100);
+        long total = 0;
+        for (int round = 0; round < 3; round++) {
+            LinkedListTabulatedFunction function = new LinkedListTabulatedFunction(-2, -1, 2);
+            function.setSkipIndexEnabled(indexed);
+            long start = System.nanoTime();
+            try {
+                for (double x : xs) {
+                    function.addPoint(new FunctionPoint(x, x));
+                }
+            }
+            catch (InappropriateFunctionPointException e) {
+                throw new IllegalStateException(e);
+            }
+            total = System.nanoTime() - start;
+        }
+        return (double) total / size;
+    }
+    private static void benchmarkBatch() {
+        Function[] functions = {
+                new Sin(),
+                new Log(Math.E),
+                Functions.sum(Functions.power(new Sin(), 2), Functions.power(new Cos(), 2)),
+                Functions.composition(new Exp(), Functions.shift(Functions.scale(new Sin(), 2, 3), 1, -1)),
+                TabulatedFunctions.tabulate(new Sin(), 0, 100, 10_000)
+        };
+        String[] names = {"sin(x)", "ln(x)", "sin²(x) + cos²(x)", "exp(3 sin(2x + 2) - 1)", "табулированный sin"};
+        double[] xs = randomPoints(1_000_000, 1, 99);
+        double[] out = new double[xs.length];
+
+        System.out.printf("%-26s%16s%16s%14s%n", "Функция", "Поточечно, нс", "Пакетом, нс", "Ускорение");
+        System.out.println("------------------------------------------------------------------------");
+        for (int f = 0; f < functions.length; f++) {
+            double scalar = measure(functions[f], xs, xs.length);
+            for (int warmup = 0; warmup < 3; warmup++) {
+                functions[f].getFunctionValues(xs, out, 0, xs.length);
+            }
+            long start = System.nanoTime();
+            functions[f].getFunctionValues(xs, out, 0, xs.length);
+            double batch = (double) (System.nanoTime() - start) / xs.length;
+            sink = out[out.length / 2];
+            System.out.printf("%-26s%16.1f%16.1f%13.1fx%n", names[f], scalar, batch, scalar / batch);
+        }
+    }
+    private static void benchmarkSortedBatch() {
+        int size = 200_000;
+        TabulatedFunction[] functions = {
+                new ArrayTabulatedFunction(0, 100, new double[size]),
+                new LinkedListTabulatedFunction(0, 100, new double[size / 10])
+        };
+        double[] xs = randomPoints(size, 0, 100);
+        java.util.Arrays.sort(xs);
+        double[] out = new double[xs.length];
+
+        System.out.printf("%-32s%16s%16s%n", "Функция", "Поточечно, нс", "Пакетом, нс");
+        System.out.println("----------------------------------------------------------------");
+        for (TabulatedFunction function : functions) {
+            // Поточечный поиск в списке без индекса линеен, поэтому для него берём каждый сотый запрос
+            double scalar;
+            if (function instanceof LinkedListTabulatedFunction) {
+                double[] sample = new double[xs.length / 100];
+                for (int i = 0; i < sample.length; i++) {
+                    sample[i] = xs[i * 100];
+                }
+                scalar = measure(function, sample, sample.length);
+            }
+            else {
+                scalar = measure(function, xs, xs.length);
+            }
+            for (int warmup = 0; warmup < 3; warmup++) {
+                function.getFunctionValues(xs, out, 0, xs.length);
+            }
+            long start = System.nanoTime();
+            function.getFunctionValues(xs, out, 0, xs.length);
+            double batch = (double) (System.nanoTime() - start) / xs.length;
+            sink = out[out.length / 2];
+            String name = function.getClass().getSimpleName() + " (" + function.getPointsCount() + ")";
+            System.out.printf("%-32s%16.1f%16.1f%n", name, scalar, batch);
+        }
+    }
+    private static void benchmarkParallelTabulation() {
+        // Композиция степени суммы: типичное глубокое дерево из functions.meta
+        Function function = Functions.composition(
+                Functions.power(Functions.sum(new Sin(), Functions.scale(new Cos(), 2, 3)), 3),
+                Functions.shift(new Exp(), 0, 1));
+        int pointsCount = 4_000_000;
+        java.util.concurrent.ForkJoinPool pool = java.util.concurrent.ForkJoinPool.commonPool();
+
+        TabulatedFunction serial = null;
+        TabulatedFunction parallel = null;
+        long serialTime = Long.MAX_VALUE;
+        long parallelTime = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            serial = TabulatedFunctions.tabulate(function, 0, 3, pointsCount);
+            serialTime = Math.min(serialTime, System.nanoTime() - start);
+            start = System.nanoTime();
+            parallel = TabulatedFunctions.tabulate(function, 0, 3, pointsCount, pool);
+            parallelTime = Math.min(parallelTime, System.nanoTime() - start);
+        }
+        for (int i = 0; i < pointsCount; i++) {
+            if (Double.doubleToLongBits(serial.getPointY(i)) != Double.doubleToLongBits(parallel.getPointY(i))) {
+                throw new IllegalStateException("Параллельный результат отличается в точке " + i);
+            }
+        }
+        System.out.printf("Точек: %d, потоков: %d%n", pointsCount, pool.getParallelism());
+        System.out.printf("Последовательно: %8.1f мс%n", serialTime / 1e6);
+        System.out.printf("Параллельно:     %8.1f мс (ускорение %.1fx, результат совпадает побитово)%n",
+                parallelTime / 1e6, (double) serialTime / parallelTime);
+    }
+    private static void benchmarkAdaptiveTabulation() {
+        Function[] functions = {new Tan(), new Log(Math.E), new Exp()};
+        double[][] bounds = {{0, 1.55}, {0.001, 10}, {0, 10}};
+        double maxError = 1e-4;
+
+        System.out.printf("%-8s%-16s%14s%18s%20s%n", "Функция", "Отрезок", "Точек", "Погрешность", "Равномерная сетка");
+        System.out.println("----------------------------------------------------------------------------");
+        for (int f = 0; f < functions.length; f++) {
+            double left = bounds[f][0];
+            double right = bounds[f][1];
+            TabulatedFunction adaptive = TabulatedFunctions.tabulateAdaptive(functions[f], left, right, maxError, 1_000_000);
+            // Погрешность равномерной сетки с тем же числом точек
+            TabulatedFunction uniform = TabulatedFunctions.tabulate(functions[f], left, right, adaptive.getPointsCount());
+            System.out.printf("%-8s%-16s%14d%18.2e%20.2e%n", functions[f].getClass().getSimpleName(),
+                    "[" + left + ", " + right + "]", adaptive.getPointsCount(),
+                    maxDeviation(adaptive, functions[f], left, right), maxDeviation(uniform, functions[f], left, right));
+        }
+    }
+    private static void benchmarkSimplifier() {
+        Function chain = new Sin();
+        for (int i = 0; i < 6; i++) {
+            chain = Functions.shift(Functions.scale(chain, 1.01, 0.99), 0.1, 0.2);
+        }
+        Function[] functions = {
+                chain,
+                Functions.power(Functions.power(new Sin(), 2), 3),
+                Functions.sum(Functions.sum(Functions.sum(new Sin(), new Cos()), Functions.power(new Cos(), 0)),
+                        Functions.sum(new Exp(), Functions.power(new Sin(), 0))),
+                Functions.mult(Functions.mult(new Sin(), Functions.power(new Exp(), 0)), Functions.mult(new Cos(), new Sin()))
+        };
+        String[] names = {"6 × shift(scale(…))", "(sin²(x))³", "вложенные суммы с 1", "вложенные произведения с 1"};
+        double[] xs = randomPoints(QUERIES, 1, 99);
+
+        System.out.printf("%-28s%10s%10s%16s%16s%n", "Функция", "Узлов", "После", "Исходное, нс", "Упрощённое, нс");
+        System.out.println("--------------------------------------------------------------------------------");
+        for (int f = 0; f < functions.length; f++) {
+            Function simplified = Functions.simplify(functions[f]);
+            System.out.printf("%-28s%10d%10d%16.1f%16.1f%n", names[f],
+                    Simplifier.countNodes(functions[f]), Simplifier.countNodes(simplified),
+                    measure(functions[f], xs, QUERIES), measure(simplified, xs, QUERIES));
+        }
+    }
+    private static void benchmarkCompiler() {
+        Function chain = new Sin();
+        for (int i = 0; i < 6; i++) {
+            chain = Functions.shift(Functions.scale(chain, 1.01, 0.99), 0.1, 0.2);
+        }
+        Function polynomial = new Cos();
+        for (int i = 0; i < 8; i++) {
+            polynomial = Functions.sum(Functions.mult(polynomial, new Sin()), Functions.power(new Cos(), 2));
+        }
+        Function[] functions = {
+                chain,
+                polynomial,
+                Functions.composition(new Exp(), Functions.sum(Functions.power(new Sin(), 2), Functions.scale(new Cos(), 2, 0.5))),
+                Functions.sum(TabulatedFunctions.tabulate(new Sin(), 0, 100, 1000), Functions.power(new Cos(), 3))
+        };
+        String[] names = {"6 × shift(scale(…))", "8 уровней sum(mult(…))", "exp(sin²(x) + cos(2x)/2)", "табулированный + cos³"};
+        double[] xs = randomPoints(QUERIES, 1, 99);
+
+        System.out.printf("%-28s%16s%18s%14s%n", "Функция", "Дерево, нс", "Компиляция, нс", "Ускорение");
+        System.out.println("------------------------------------------------------------------------------");
+        for (int f = 0; f < functions.length; f++) {
+            Function compiled = Functions.compile(functions[f]);
+            double tree = measure(functions[f], xs, QUERIES);
+            double straight = measure(compiled, xs, QUERIES);
+            System.out.printf("%-28s%16.1f%18.1f%13.1fx%n", names[f], tree, straight, tree / straight);
+        }
+    }
+    private static void benchmarkDeepTrees() {
+        // Над табулированным листом границы узлов читаются при каждом вызове,
+        // над базовыми функциями они вычислены при построении дерева
+        TabulatedFunction table = TabulatedFunctions.tabulate(new Sin(), 0, 100, 1000);
+        double[] xs = randomPoints(QUERIES, 1, 99);
+
+        System.out.printf("%-10s%24s%24s%n", "Глубина", "Постоянные границы, нс", "Изменяемые границы, нс");
+        System.out.println("----------------------------------------------------------");
+        for (int depth : new int[]{4, 8, 16, 32}) {
+            Function fixed = new Sin();
+            Function mutable = table;
+            for (int i = 0; i < depth; i++) {
+                fixed = Functions.sum(fixed, new Cos());
+                mutable = Functions.sum(mutable, new Cos());
+            }
+            System.out.printf("%-10d%24.1f%24.1f%n", depth, measure(fixed, xs, QUERIES), measure(mutable, xs, QUERIES));
+        }
+    }
+    private static void benchmarkCache() {
+        // Дерево порядка микросекунды на вычисление
+        Function expensive = new Cos();
+        for (int i = 0; i < 8; i++) {
+            expensive = Functions.sum(Functions.mult(expensive, new Sin()), Functions.power(new Log(Math.E), 1.5));
+        }
+        // Запросы с повторами: точки берутся из 5000 значений с шагом 0.01, частые - чаще
+        java.util.Random random = new java.util.Random(42);
+        double[] xs = new double[QUERIES];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = 1 + Math.floor(Math.pow(random.nextDouble(), 3) * 5000) * 0.01 + random.nextDouble() * 0.004;
+        }
+
+        System.out.printf("%-24s%14s%16s%n", "Вариант", "Время, нс", "Попадания, %");
+        System.out.println("------------------------------------------------------");
+        System.out.printf("%-24s%14.1f%16s%n", "без кэша", measure(expensive, xs, QUERIES), "-");
+        for (CachedFunction.Eviction eviction : CachedFunction.Eviction.values()) {
+            CachedFunction cached = Functions.cached(expensive, 2000, eviction, 0.01);
+            double time = measure(cached, xs, QUERIES);
+            double hitRate = 100.0 * cached.getHitCount() / (cached.getHitCount() + cached.getMissCount());
+            System.out.printf("%-24s%14.1f%16.1f%n", eviction + ", 2000 значений", time, hitRate);
+        }
+    }
+    private static void benchmarkMappedFile() {
+        java.nio.file.Path file;
+        try {
+            file = java.nio.file.Files.createTempFile("tabulated", ".bin");
+            file.toFile().deleteOnExit();
+            try (java.io.OutputStream out = new java.io.BufferedOutputStream(java.nio.file.Files.newOutputStream(file))) {
+                TabulatedFunctions.outputTabulatedFunction(TabulatedFunctions.tabulate(new Sin(), 0, 100, 2_000_000), out);
+            }
+        }
+        catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+        double[] xs = randomPoints(QUERIES, 1, 99);
+
+        System.out.printf("%-28s%16s%16s%n", "Способ", "Открытие, мс", "Запрос, нс");
+        System.out.println("------------------------------------------------------------");
+        long start = System.nanoTime();
+        TabulatedFunction loaded;
+        try (java.io.InputStream in = new java.io.BufferedInputStream(java.nio.file.Files.newInputStream(file))) {
+            loaded = TabulatedFunctions.inputTabulatedFunction(in);
+        }
+        catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+        double loadTime = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-28s%16.1f%16.1f%n", "inputTabulatedFunction", loadTime, measure(loaded, xs, QUERIES));
+
+        start = System.nanoTime();
+        TabulatedFunction mapped = TabulatedFunctions.mapTabulatedFunction(file);
+        double mapTime = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-28s%16.1f%16.1f%n", "mapTabulatedFunction", mapTime, measure(mapped, xs, QUERIES));
+    }
+    private static void benchmarkBinaryChannels() {
+        TabulatedFunction function = TabulatedFunctions.tabulate(new Sin(), 0, 100, 2_000_000);
+        try {
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("tabulated", ".bin");
+            file.toFile().deleteOnExit();
+            System.out.printf("%-36s%14s%n", "Операция", "Время, мс");
+            System.out.println("--------------------------------------------------");
+            for (int round = 0; round < 2; round++) {
+                // Первый проход - прогрев, печатается второй
+                boolean print = round == 1;
+                long start = System.nanoTime();
+                try (java.io.OutputStream out = new java.io.BufferedOutputStream(java.nio.file.Files.newOutputStream(file))) {
+                    TabulatedFunctions.outputTabulatedFunction(function, out);
+                }
+                report(print, "запись DataOutputStream", start);
+
+                start = System.nanoTime();
+                try (java.nio.channels.FileChannel out = java.nio.channels.FileChannel.open(file,
+                        java.nio.file.StandardOpenOption.WRITE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING)) {
+                    TabulatedFunctions.outputTabulatedFunction(function, out);
+                }
+                report(print, "запись через канал", start);
+
+                start = System.nanoTime();
+                try (java.io.InputStream in = new java.io.BufferedInputStream(java.nio.file.Files.newInputStream(file))) {
+                    sink = TabulatedFunctions.inputTabulatedFunction(in).getPointY(1);
+                }
+                report(print, "чтение DataInputStream", start);
+
+                start = System.nanoTime();
+                try (java.nio.channels.FileChannel in = java.nio.channels.FileChannel.open(file)) {
+                    sink = TabulatedFunctions.inputTabulatedFunction(in).getPointY(1);
+                }
+                report(print, "чтение через канал", start);
+
+                start = System.nanoTime();
+                double[] sum = new double[1];
+                try (java.nio.channels.FileChannel in = java.nio.channels.FileChannel.open(file)) {
+                    TabulatedFunctions.inputTabulatedFunction(in, (x, y) -> sum[0] += y);
+                }
+                sink = sum[0];
+                report(print, "потоковое чтение (сумма y)", start);
+            }
+        }
+        catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    private static void report(boolean print, String name, long start) {
+        if (print) {
+            System.out.printf("%-36s%14.1f%n", name, (System.nanoTime() - start) / 1e6);
+        }
+    }
+    private static void benchmarkTextParsing() {
+        int pointsCount = 10_000_000;
+        try {
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("tabulated", ".txt");
+            file.toFile().deleteOnExit();
+            try (java.io.Writer out = java.nio.file.Files.newBufferedWriter(file)) {
+                TabulatedFunctions.writeTabulatedFunction(TabulatedFunctions.tabulate(new Sin(), 0, 1000, pointsCount), out);
+            }
+            long bytes = java.nio.file.Files.size(file);
+
+            System.out.printf("%-36s%14s%14s%n", "Способ", "Время, мс", "МБ/с");
+            System.out.println("----------------------------------------------------------------");
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                try (java.io.Reader in = java.nio.file.Files.newBufferedReader(file)) {
+                    sink = parseWithStrings(in, pointsCount);
+                }
+                reportThroughput(round == 1, "строка + Double.parseDouble", start, bytes);
+
+                start = System.nanoTime();
+                try (java.io.Reader in = java.nio.file.Files.newBufferedReader(file)) {
+                    sink = TabulatedFunctions.readTabulatedFunction(in).getPointY(pointsCount / 2);
+                }
+                reportThroughput(round == 1, "readTabulatedFunction", start, bytes);
+            }
+        }
+        catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    // Для сравнения: каждое число выделяется в отдельную строку и разбирается Double.parseDouble
+    private static double parseWithStrings(java.io.Reader in, int pointsCount) throws java.io.IOException {
+        java.io.StreamTokenizer tokenizer = new java.io.StreamTokenizer(in);
+        tokenizer.resetSyntax();
+        tokenizer.wordChars(33, 255);
+        tokenizer.whitespaceChars(0, ' ');
+        double sum = 0;
+        while (tokenizer.nextToken() != java.io.StreamTokenizer.TT_EOF) {
+            sum += Double.parseDouble(tokenizer.sval);
+        }
+        return sum + pointsCount;
+    }
+    private static void reportThroughput(boolean print, String name, long start, long bytes) {
+        if (print) {
+            double millis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%-36s%14.1f%14.1f%n", name, millis, bytes / 1e3 / millis);
+        }
+    }
+    private static void benchmarkTextWriting() {
+        int pointsCount = 5_000_000;
+        TabulatedFunction function = TabulatedFunctions.tabulate(new Sin(), 0, 1000, pointsCount);
+
+        System.out.printf("%-36s%14s%14s%n", "Способ", "Время, мс", "МБ/с");
+        System.out.println("----------------------------------------------------------------");
+        for (int round = 0; round < 2; round++) {
+            CountingWriter out = new CountingWriter();
+            long start = System.nanoTime();
+            writeWithStrings(function, out);
+            reportThroughput(round == 1, "\" \" + double, PrintWriter", start, out.count);
+
+            out = new CountingWriter();
+            start = System.nanoTime();
+            TabulatedFunctions.writeTabulatedFunction(function, out);
+            reportThroughput(round == 1, "writeTabulatedFunction", start, out.count);
+
+            out = new CountingWriter();
+            start = System.nanoTime();
+            TabulatedFunctions.writeTabulatedFunction(function, out, 6);
+            reportThroughput(round == 1, "writeTabulatedFunction, 6 знаков", start, out.count);
+        }
+    }
+    // Для сравнения: прежний способ записи, со строкой на каждую координату
+    private static void writeWithStrings(TabulatedFunction function, java.io.Writer out) {
+        java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.BufferedWriter(out));
+        int pointsCount = function.getPointsCount();
+        writer.print(pointsCount);
+        for (int i = 0; i < pointsCount; i++) {
+            writer.print(" " + function.getPointX(i));
+            writer.print(" " + function.getPointY(i));
+        }
+        writer.flush();
+    }
+    // Поток, который только считает записанные символы, чтобы измерялось форматирование, а не диск
+    private static final class CountingWriter extends java.io.Writer {
+        long count;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            count += length;
+        }
+        @Override
+        public void flush() {
+        }
+        @Override
+        public void close() {
+        }
+    }
+    private static void benchmarkCompactFormat() {
+        TabulatedFunction function = TabulatedFunctions.tabulate(new Exp(), 0, 5, 2_000_000);
+        ValueEncoding[] encodings = ValueEncoding.values();
+        try {
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("tabulated", ".bin");
+            file.toFile().deleteOnExit();
+            System.out.printf("%-24s%14s%14s%14s%n", "Формат", "Размер, МБ", "Запись, мс", "Чтение, мс");
+            System.out.println("------------------------------------------------------------------");
+            for (int round = 0; round < 2; round++) {
+                // Первый проход - прогрев, печатается второй
+                for (int k = -1; k < encodings.length; k++) {
+                    long start = System.nanoTime();
+                    try (java.nio.channels.FileChannel out = java.nio.channels.FileChannel.open(file,
+                            java.nio.file.StandardOpenOption.WRITE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING)) {
+                        if (k < 0) {
+                            TabulatedFunctions.outputTabulatedFunction(function, out);
+                        }
+                        else {
+                            TabulatedFunctions.outputCompactTabulatedFunction(function, out, encodings[k]);
+                        }
+                    }
+                    double writeTime = (System.nanoTime() - start) / 1e6;
+
+                    start = System.nanoTime();
+                    try (java.nio.channels.FileChannel in = java.nio.channels.FileChannel.open(file)) {
+                        sink = TabulatedFunctions.inputTabulatedFunction(in).getPointY(1);
+                    }
+                    double readTime = (System.nanoTime() - start) / 1e6;
+                    if (round == 1) {
+                        System.out.printf("%-24s%14.2f%14.1f%14.1f%n", k < 0 ? "прежний (x, y)" : "компактный, " + encodings[k],
+                                java.nio.file.Files.size(file) / 1e6, writeTime, readTime);
+                    }
+                }
+            }
+        }
+        catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    private static void benchmarkSerialization() {
+        int pointsCount = 1_000_000;
+        FunctionPoint[] points = new FunctionPoint[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            points[i] = new FunctionPoint(i * 0.001, Math.sin(i * 0.001));
+        }
+        TabulatedFunction[] functions = {
+                new ArrayTabulatedFunction(points),
+                new ArrayTabulatedFunctionExternalizable(points),
+                new LinkedListTabulatedFunction(points),
+                new LinkedListTabulatedFunctionExternalizable(points)
+        };
+        try {
+            System.out.printf("%-44s%14s%14s%n", "Способ", "Запись, мс", "Чтение, мс");
+            System.out.println("------------------------------------------------------------------------");
+            for (int round = 0; round < 2; round++) {
+                // Первый проход - прогрев, печатается второй
+                java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream(20 * pointsCount);
+                long start = System.nanoTime();
+                TabulatedFunctions.outputTabulatedFunction(functions[0], new java.io.BufferedOutputStream(bytes));
+                double writeTime = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                sink = TabulatedFunctions.inputTabulatedFunction(new java.io.BufferedInputStream(
+                        new java.io.ByteArrayInputStream(bytes.toByteArray()))).getPointY(1);
+                double readTime = (System.nanoTime() - start) / 1e6;
+                if (round == 1) {
+                    System.out.printf("%-44s%14.1f%14.1f%n", "DataOutputStream (outputTabulatedFunction)", writeTime, readTime);
+                }
+
+                // Прежний способ: writeDouble на каждую координату в ObjectOutputStream
+                bytes = new java.io.ByteArrayOutputStream(20 * pointsCount);
+                start = System.nanoTime();
+                try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+                    out.writeInt(pointsCount);
+                    for (int i = 0; i < pointsCount; i++) {
+                        out.writeDouble(points[i].getX());
+                        out.writeDouble(points[i].getY());
+                    }
+                }
+                writeTime = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+                    int count = in.readInt();
+                    FunctionPoint[] restored = new FunctionPoint[count];
+                    for (int i = 0; i < count; i++) {
+                        double x = in.readDouble();
+                        restored[i] = new FunctionPoint(x, in.readDouble());
+                    }
+                    sink = restored[1].getY();
+                }
+                readTime = (System.nanoTime() - start) / 1e6;
+                if (round == 1) {
+                    System.out.printf("%-44s%14.1f%14.1f%n", "writeDouble на координату (прежний способ)", writeTime, readTime);
+                }
+
+                for (TabulatedFunction function : functions) {
+                    bytes = new java.io.ByteArrayOutputStream(20 * pointsCount);
+                    start = System.nanoTime();
+                    try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+                        out.writeObject(function);
+                    }
+                    writeTime = (System.nanoTime() - start) / 1e6;
+                    start = System.nanoTime();
+                    try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+                        sink = ((TabulatedFunction) in.readObject()).getPointY(1);
+                    }
+                    readTime = (System.nanoTime() - start) / 1e6;
+                    if (round == 1) {
+                        System.out.printf("%-44s%14.1f%14.1f%n", function.getClass().getSimpleName(), writeTime, readTime);
+                    }
+                }
+            }
+        }
+        catch (java.io.IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    private static void benchmarkBulkInsertion() {
+        int count = 200_000;
+        int batchSize = 1000;
+        // Поток измерений: точки приходят по возрастанию X
+        FunctionPoint[] samples = new FunctionPoint[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = new FunctionPoint(2 + i * 0.01, Math.sin(i * 0.01));
+        }
+        // Точки в случайном порядке внутри области определения
+        java.util.Random random = new java.util.Random(42);
+        FunctionPoint[] scattered = new FunctionPoint[count];
+        for (int i = 0; i < count; i++) {
+            scattered[i] = new FunctionPoint(1 + random.nextDouble(), random.nextDouble());
+        }
+
+        System.out.printf("%-44s%14s%n", "Способ", "Время, мс");
+        System.out.println("----------------------------------------------------------");
+        try {
+            for (int round = 0; round < 2; round++) {
+                // Первый проход - прогрев, печатается второй
+                boolean print = round == 1;
+                ArrayTabulatedFunction function = new ArrayTabulatedFunction(0, 1, 2);
+                long start = System.nanoTime();
+                for (FunctionPoint sample : samples) {
+                    function.addPoint(sample);
+                }
+                report(print, "по возрастанию, addPoint", start);
+
+                function = new ArrayTabulatedFunction(0, 1, 2);
+                start = System.nanoTime();
+                for (int from = 0; from < count; from += batchSize) {
+                    function.addPoints(java.util.Arrays.copyOfRange(samples, from, from + batchSize));
+                }
+                report(print, "по возрастанию, addPoints по " + batchSize, start);
+
+                function = new ArrayTabulatedFunction(0, 2, 2);
+                start = System.nanoTime();
+                for (FunctionPoint point : scattered) {
+                    function.addPoint(point);
+                }
+                report(print, "вразброс, addPoint", start);
+
+                function = new ArrayTabulatedFunction(0, 2, 2);
+                start = System.nanoTime();
+                function.addPoints(scattered);
+                report(print, "вразброс, addPoints одним набором", start);
+            }
+        }
+        catch (InappropriateFunctionPointException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    private static void benchmarkConcurrentReads() {
+        int pointsCount = 10_000;
+        int callsPerThread = 2_000_000;
+        int[] threadCounts = {1, 2, 4};
+        ArrayTabulatedFunction locked = new ArrayTabulatedFunction(0, 100, pointsCount);
+        ConcurrentTabulatedFunction concurrent = new ConcurrentTabulatedFunction(0, 100, pointsCount);
+
+        System.out.println("Процессоров: " + Runtime.getRuntime().availableProcessors()
+                + "; запись setPointY раз в миллисекунду");
+        System.out.printf("%-44s%10s%18s%n", "Функция", "Потоков", "Млн вызовов/с");
+        System.out.println("------------------------------------------------------------------------");
+        for (int round = 0; round < 2; round++) {
+            // Первый проход - прогрев, печатается второй
+            for (int threads : threadCounts) {
+                // Все обращения к ArrayTabulatedFunction идут под её монитором
+                double lockedRate = measureConcurrentReads(threads, callsPerThread,
+                        x -> {
+                            synchronized (locked) {
+                                return locked.getFunctionValue(x);
+                            }
+                        },
+                        i -> {
+                            synchronized (locked) {
+                                locked.setPointY(i, i);
+                            }
+                        });
+                double concurrentRate = measureConcurrentReads(threads, callsPerThread,
+                        concurrent::getFunctionValue, i -> concurrent.setPointY(i, i));
+                if (round == 1) {
+                    System.out.printf("%-44s%10d%18.1f%n", "ArrayTabulatedFunction + synchronized", threads, lockedRate);
+                    System.out.printf("%-44s%10d%18.1f%n", "ConcurrentTabulatedFunction", threads, concurrentRate);
+                }
+            }
+        }
+    }
+    // Суммарная скорость чтения в миллионах вызовов в секунду
+    private static double measureConcurrentReads(int threads, int callsPerThread,
+                                                 java.util.function.DoubleUnaryOperator reader,
+                                                 java.util.function.IntConsumer writer) {
+        java.util.concurrent.atomic.AtomicBoolean done = new java.util.concurrent.atomic.AtomicBoolean();
+        Thread writerThread = new Thread(() -> {
+            int i = 0;
+            while (!done.get()) {
+                writer.accept(i++ % 1000);
+                java.util.concurrent.locks.LockSupport.parkNanos(1_000_000);
+            }
+        });
+        Thread[] readers = new Thread[threads];
+        double[] sums = new double[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            readers[t] = new Thread(() -> {
+                double sum = 0;
+                double x = index;
+                for (int i = 0; i < callsPerThread; i++) {
+                    sum += reader.applyAsDouble(x);
+                    x += 0.61803398875;
+                    if (x > 100) {
+                        x -= 100;
+                    }
+                }
+                sums[index] = sum;
+            });
+        }
+        writerThread.start();
+        long start = System.nanoTime();
+        for (Thread thread : readers) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : readers) {
+                thread.join();
+            }
+            long elapsed = System.nanoTime() - start;
+            done.set(true);
+            writerThread.join();
+            sink = sums[0];
+            return (double) threads * callsPerThread / elapsed * 1e3;
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    private static void benchmarkVersions() {
+        int pointsCount = 10_000;
+        int versionCount = 1000;
+        double[] values = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            values[i] = Math.sin(i * 0.001);
+        }
+        java.util.Random random = new java.util.Random(42);
+        int[] indices = new int[versionCount];
+        for (int v = 0; v < versionCount; v++) {
+            indices[v] = random.nextInt(pointsCount);
+        }
+        double[] xs = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = i * 0.01 + 0.005;
+        }
+        double[] out = new double[pointsCount];
+
+        System.out.printf("%-36s%14s%14s%14s%n", "Способ", "Правки, мс", "Память, МБ", "Чтение, мс");
+        System.out.println("------------------------------------------------------------------------------");
+        for (int round = 0; round < 2; round++) {
+            // Первый проход - прогрев, печатается второй.
+            // Каждая версия отличается от предыдущей одним значением, все версии хранятся
+            long before = usedMemory();
+            long start = System.nanoTime();
+            TabulatedFunction[] copies = new TabulatedFunction[versionCount];
+            TabulatedFunction current = new ArrayTabulatedFunction(0, 100, values);
+            for (int v = 0; v < versionCount; v++) {
+                double[] copy = new double[pointsCount];
+                for (int i = 0; i < pointsCount; i++) {
+                    copy[i] = current.getPointY(i);
+                }
+                copy[indices[v]] = v;
+                current = new ArrayTabulatedFunction(0, 100, copy);
+                copies[v] = current;
+            }
+            double editTime = (System.nanoTime() - start) / 1e6;
+            double memory = (usedMemory() - before) / 1e6;
+            start = System.nanoTime();
+            for (TabulatedFunction version : copies) {
+                version.getFunctionValues(xs, out, 0, pointsCount);
+            }
+            double readTime = (System.nanoTime() - start) / 1e6;
+            sink = out[pointsCount / 2] + copies.length;
+            if (round == 1) {
+                System.out.printf("%-36s%14.1f%14.1f%14.1f%n", "копия ArrayTabulatedFunction", editTime, memory, readTime);
+            }
+            copies = null;
+            current = null;
+
+            before = usedMemory();
+            start = System.nanoTime();
+            PersistentTabulatedFunction[] versions = new PersistentTabulatedFunction[versionCount];
+            PersistentTabulatedFunction version = new PersistentTabulatedFunction(0, 100, values);
+            for (int v = 0; v < versionCount; v++) {
+                version = version.withPointY(indices[v], v);
+                versions[v] = version;
+            }
+            editTime = (System.nanoTime() - start) / 1e6;
+            memory = (usedMemory() - before) / 1e6;
+            start = System.nanoTime();
+            for (PersistentTabulatedFunction function : versions) {
+                function.getFunctionValues(xs, out, 0, pointsCount);
+            }
+            readTime = (System.nanoTime() - start) / 1e6;
+            sink = out[pointsCount / 2] + versions.length;
+            if (round == 1) {
+                System.out.printf("%-36s%14.1f%14.1f%14.1f%n", "PersistentTabulatedFunction", editTime, memory, readTime);
+            }
+        }
+    }
+    private static void benchmarkInterpolation() {
+        Function[] functions = {new Sin(), new Exp()};
+        double[][] bounds = {{0, 10}, {0, 5}};
+        double maxError = 1e-6;
+        Interpolation[] modes = Interpolation.values();
+
+        // Наименьшая равномерная сетка с погрешностью не больше maxError: удвоение, затем деление пополам
+        System.out.printf("%-8s%-16s%14s%18s%n", "Функция", "Способ", "Точек", "Погрешность");
+        System.out.println("--------------------------------------------------------");
+        for (int f = 0; f < functions.length; f++) {
+            double left = bounds[f][0];
+            double right = bounds[f][1];
+            for (Interpolation mode : modes) {
+                int high = 4;
+                while (interpolationError(functions[f], left, right, high, mode) > maxError) {
+                    high *= 2;
+                }
+                int low = high / 2;
+                while (high - low > 1) {
+                    int middle = (low + high) >>> 1;
+                    if (interpolationError(functions[f], left, right, middle, mode) > maxError) {
+                        low = middle;
+                    }
+                    else {
+                        high = middle;
+                    }
+                }
+                System.out.printf("%-8s%-16s%14d%18.2e%n", functions[f].getClass().getSimpleName(), mode, high,
+                        interpolationError(functions[f], left, right, high, mode));
+            }
+        }
+
+        // Цена вычисления и изменения на таблице из 100 000 точек
+        int pointsCount = 100_000;
+        int samples = 1_000_000;
+        double[] xs = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            xs[i] = 10.0 * i / samples;
+        }
+        double[] out = new double[samples];
+        System.out.printf("%n%-16s%22s%26s%n", "Способ", "Пакет, нс на точку", "setPointY + значение, мкс");
+        System.out.println("----------------------------------------------------------------");
+        for (int round = 0; round < 2; round++) {
+            // Первый проход - прогрев, печатается второй
+            for (Interpolation mode : modes) {
+                ArrayTabulatedFunction function = (ArrayTabulatedFunction) TabulatedFunctions.tabulate(new Sin(), 0, 10, pointsCount);
+                function.setInterpolation(mode);
+                function.getFunctionValues(xs, out, 0, samples);
+                long start = System.nanoTime();
+                function.getFunctionValues(xs, out, 0, samples);
+                double batchTime = (double) (System.nanoTime() - start) / samples;
+                sink = out[samples / 2];
+
+                // Естественный сплайн пересчитывается целиком, для него изменений меньше
+                int edits = mode == Interpolation.NATURAL_CUBIC ? 200 : 100_000;
+                java.util.Random random = new java.util.Random(42);
+                start = System.nanoTime();
+                for (int e = 0; e < edits; e++) {
+                    int index = random.nextInt(pointsCount);
+                    function.setPointY(index, Math.sin(function.getPointX(index)) + 1e-9);
+                    sink = function.getFunctionValue(function.getPointX(index));
+                }
+                double editTime = (System.nanoTime() - start) / 1e3 / edits;
+                if (round == 1) {
+                    System.out.printf("%-16s%22.1f%26.2f%n", mode, batchTime, editTime);
+                }
+            }
+        }
+    }
+    private static double interpolationError(Function function, double left, double right, int pointsCount, Interpolation mode) {
+        ArrayTabulatedFunction table = (ArrayTabulatedFunction) TabulatedFunctions.tabulate(function, left, right, pointsCount);
+        table.setInterpolation(mode);
+        return maxDeviation(table, function, left, right);
+    }
+    private static void benchmarkChebyshev() {
+        // exp(sin x) * ln(x + 2): дерево из functions.meta с тремя вызовами Math на значение
+        Function composite = Functions.mult(Functions.composition(new Exp(), new Sin()),
+                Functions.shift(new Log(Math.E), 2, 0));
+        Function[] functions = {new Sin(), new Exp(), composite};
+        String[] names = {"Sin", "Exp", "exp(sin x) ln(x + 2)"};
+        double[][] bounds = {{0, 10}, {0, 5}, {0, 10}};
+        int tabulatedPoints = 10_000;
+        int queries = 2_000_000;
+
+        System.out.printf("%-24s%-24s%14s%16s%12s%n", "Функция", "Способ", "Чисел", "Погрешность", "нс/вызов");
+        System.out.println("------------------------------------------------------------------------------------------");
+        for (int f = 0; f < functions.length; f++) {
+            double left = bounds[f][0];
+            double right = bounds[f][1];
+            double[] xs = randomPoints(queries, left, right);
+            System.out.printf("%-24s%-24s%14s%16s%12.1f%n", names[f], "исходная", "-", "-",
+                    measure(functions[f], xs, queries));
+            TabulatedFunction table = TabulatedFunctions.tabulate(functions[f], left, right, tabulatedPoints);
+            System.out.printf("%-24s%-24s%14d%16.2e%12.1f%n", names[f], "таблица " + tabulatedPoints, 2 * tabulatedPoints,
+                    maxDeviation(table, functions[f], left, right), measure(table, xs, queries));
+            int[][] shapes = {{16, 1}, {32, 1}, {12, 8}};
+            for (int[] shape : shapes) {
+                ChebyshevApproximation approximation = Functions.chebyshev(functions[f], left, right, shape[0], shape[1]);
+                String name = "Чебышёв " + shape[0] + (shape[1] > 1 ? " x " + shape[1] + " частей" : "");
+                System.out.printf("%-24s%-24s%14d%16.2e%12.1f%n", names[f], name, (shape[0] + 1) * shape[1],
+                        approximation.getMaxError(), measure(approximation, xs, queries));
+            }
+        }
+    }
+    private static void benchmarkFastFunctions() {
+        Function[] exact = {new Sin(), new Cos(), new Tan(), new Exp(), new Log(Math.E), new Log(10)};
+        Function[] fast = {new FastSin(), new FastCos(), new FastTan(), new FastExp(), new FastLog(Math.E), new FastLog(10)};
+        double[] declared = {FastSin.MAX_ULP_ERROR, FastCos.MAX_ULP_ERROR, FastTan.MAX_ULP_ERROR,
+                FastExp.MAX_ULP_ERROR, FastLog.MAX_ULP_ERROR, FastLog.MAX_ULP_ERROR};
+        String[] names = {"sin", "cos", "tan", "exp", "ln", "lg"};
+        double[][] bounds = {{-100, 100}, {-100, 100}, {-100, 100}, {-700, 700}, {1e-3, 1e6}, {1e-3, 1e6}};
+        int queries = 2_000_000;
+        double[] out = new double[queries];
+
+        System.out.printf("%-10s%12s%12s%14s%14s%16s%16s%n", "Функция", "Объявлено", "Измерено",
+                "Math, нс", "Быстрая, нс", "Math пакетом", "Быстрая пакетом");
+        System.out.println("----------------------------------------------------------------------------------------------");
+        for (int f = 0; f < exact.length; f++) {
+            double[] xs = randomPoints(queries, bounds[f][0], bounds[f][1]);
+            double maxUlps = 0;
+            for (double x : xs) {
+                double expected = exact[f].getFunctionValue(x);
+                double actual = fast[f].getFunctionValue(x);
+                if (Double.isNaN(expected) != Double.isNaN(actual)) {
+                    maxUlps = Double.POSITIVE_INFINITY;
+                }
+                else if (!Double.isNaN(expected)) {
+                    maxUlps = Math.max(maxUlps, Math.abs(actual - expected) / Math.ulp(expected));
+                }
+            }
+            System.out.printf("%-10s%12.0f%12.1f%14.1f%14.1f%16.1f%16.1f%n", names[f], declared[f], maxUlps,
+                    measure(exact[f], xs, queries), measure(fast[f], xs, queries),
+                    measureBatch(exact[f], xs, out), measureBatch(fast[f], xs, out));
+        }
+    }
+    // Среднее время на точку при вычислении getFunctionValues по всему массиву, нс
+    private static double measureBatch(Function function, double[] xs, double[] out) {
+        for (int warmup = 0; warmup < 3; warmup++) {
+            function.getFunctionValues(xs, out, 0, xs.length);
+        }
+        long start = System.nanoTime();
+        function.getFunctionValues(xs, out, 0, xs.length);
+        double time = (double) (System.nanoTime() - start) / xs.length;
+        sink = out[out.length / 2];
+        return time;
+    }
+    private static void benchmarkBlockKernels() {
+        String avx;
+        try {
+            com.sun.management.HotSpotDiagnosticMXBean diagnostics = java.lang.management.ManagementFactory
+                    .getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            avx = "UseAVX = " + diagnostics.getVMOption("UseAVX").getValue()
+                    + ", UseSuperWord = " + diagnostics.getVMOption("UseSuperWord").getValue();
+        }
+        catch (RuntimeException | LinkageError e) {
+            avx = "векторные расширения неизвестны";
+        }
+        System.out.println(avx);
+        System.out.println(vectorEngineLoaded()
+                ? "Движок Vector API подключён"
+                : "Движок Vector API не подключён (нужны классы src-vector и --add-modules jdk.incubator.vector)");
+
+        TabulatedFunction uniform = TabulatedFunctions.tabulate(new Sin(), 0, 100, 10_000);
+        TabulatedFunction irregular = TabulatedFunctions.tabulate(new Sin(), 0, 100, 10_000);
+        try {
+            irregular.setPointX(1, irregular.getPointX(1) * 0.5);
+        }
+        catch (InappropriateFunctionPointException e) {
+            throw new AssertionError(e);
+        }
+        ArrayTabulatedFunction cubic = (ArrayTabulatedFunction) TabulatedFunctions.tabulate(new Sin(), 0, 100, 10_000);
+        cubic.setInterpolation(Interpolation.MONOTONE_CUBIC);
+        Function[] functions = {new Sin(), new FastSin(), new FastCos(), new FastTan(), new Exp(), new FastExp(),
+                new Log(Math.E), new FastLog(Math.E), irregular, uniform, cubic};
+        String[] names = {"Sin (Math)", "FastSin", "FastCos", "FastTan", "Exp (Math)", "FastExp", "Log (Math)", "FastLog",
+                "таблица, неравномерная", "таблица, равномерная", "таблица, равномерная, куб."};
+        double[][] bounds = {{-100, 100}, {-100, 100}, {-100, 100}, {-100, 100}, {-700, 700}, {-700, 700},
+                {1e-3, 1e6}, {1e-3, 1e6}, {0, 100}, {0, 100}, {0, 100}};
+        int queries = 2_000_000;
+        double[] out = new double[queries];
+
+        System.out.printf("%-30s%18s%18s%12s%n", "Функция", "Поточечно, млн/с", "Пакетом, млн/с", "Ускорение");
+        System.out.println("------------------------------------------------------------------------------");
+        for (int f = 0; f < functions.length; f++) {
+            double[] xs = randomPoints(queries, bounds[f][0], bounds[f][1]);
+            double scalar = measure(functions[f], xs, queries);
+            double batch = measureBatch(functions[f], xs, out);
+            System.out.printf("%-30s%18.1f%18.1f%11.1fx%n", names[f], 1000 / scalar, 1000 / batch, scalar / batch);
+        }
+    }
+    // Классы движка собраны и модуль jdk.incubator.vector подключён
+    private static boolean vectorEngineLoaded() {
+        try {
+            Class.forName("jdk.incubator.vector.DoubleVector");
+            Class.forName("functions.basic.VectorFastMath");
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+    private static double maxDeviation(Function approximation, Function function, double left, double right) {
+        int samples = 200_000;
+        double max = 0;
+        for (int i = 0; i <= samples; i++) {
+            double x = left + (right - left) * i / samples;
+            max = Math.max(max, Math.abs(approximation.getFunctionValue(x) - function.getFunctionValue(x)));
+        }
+        return max;
+    }
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Среднее время одного вызова getFunctionValue в наносекундах
+    private static double measure(Function function, double[] xs, int queries) {
+        for (int warmup = 0; warmup < 3; warmup++) {
+            run(function, xs, queries);
+        }
+        long start = System.nanoTime();
+        run(function, xs, queries);
+        return (double) (System.nanoTime() - start) / queries;
+    }
+    private static void run(Function function, double[] xs, int queries) {
+        double sum = 0;
+        for (int i = 0; i < queries; i++) {
+            sum += function.getFunctionValue(xs[i]);
+        }
+        sink = sum;
+    }
+    private static double[] randomPoints(int count, double from, double to) {
+        java.util.Random random = new java.util.Random(42);
+        double[] xs = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = from + (to - from) * random.nextDouble();
+        }
+        return xs;
+    }
+}
@@ -0,0 +1,288 @@
+import functions.*;
+import functions.basic.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+// Набор измерений горячих путей: вычисление значения табулированных функций всех четырёх реализаций
+// на размерах от 10 до 10^7, изменение таблицы (addPoint, deletePoint, setPointX) и табулирование
+// деревьев functions.meta. Каждое измерение - несколько итераций прогрева и несколько итераций замера
+// фиксированной длительности; печатаются пропускная способность (среднее и разброс по итерациям),
+// выделенная память на операцию и в секунду и количество сборок мусора за замер.
+// Как и JMH, каждое измерение выполняется в отдельной JVM с тем же classpath и параметрами JVM:
+// иначе профиль JIT (например, мегаморфный вызов operation.run) переходил бы от одного измерения
+// к следующему, и результат зависел бы от порядка запуска и фильтра.
+// Аргумент командной строки - регулярное выражение: запускаются только измерения, в названии
+// которых оно находится, например: java HotPathBenchmark "Linked.*10000$"
+// Те же измерения на самом JMH - в модуле bench (bench/pom.xml, запуск с -prof gc); этот класс
+// не требует сборки и зависимостей и запускается из того же дерева, что и Main
+public class HotPathBenchmark {
+    private static final String CHILD = "--child"; // Первый аргумент дочерней JVM: выполнить одно измерение здесь
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 250_000_000L;
+    private static final long BATCH_NANOS = 1_000_000L;
+    private static final int INPUTS = 1024; // Заранее подготовленные аргументы, выбираются по i & (INPUTS - 1)
+    private static volatile double sink; // Чтобы JIT не выбросил вычисления
+
+    private static Pattern filter;
+    private static boolean child;
+
+    // Одна операция измерения; i - номер вызова, по нему выбирается аргумент
+    private interface Operation {
+        double run(int i) throws Exception;
+    }
+    // Создание табулированной функции по значениям на равномерной сетке от leftX до rightX
+    private interface Factory {
+        TabulatedFunction create(double leftX, double rightX, double[] values);
+    }
+
+    public static void main(String[] args) throws Exception {
+        child = args.length > 0 && args[0].equals(CHILD);
+        if (child) {
+            filter = Pattern.compile(args[1]);
+            run();
+            return;
+        }
+        filter = args.length > 0 ? Pattern.compile(args[0]) : null;
+        System.out.printf("%-64s%16s%12s%14s%14s%6s%n", "Измерение", "Операций/с", "±", "Байт/оп", "МБ/с", "GC");
+        System.out.println("----------------------------------------------------------------------------------------------------------------------------");
+        run();
+    }
+    // Обходит все измерения; в родительской JVM selected запускает выбранные в дочерних,
+    // в дочерней - разрешает выполнить единственное выбранное
+    private static void run() throws Exception {
+        String[] names = {"ArrayTabulatedFunction", "ArrayTabulatedFunctionExternalizable",
+                "LinkedListTabulatedFunction", "LinkedListTabulatedFunctionExternalizable"};
+        Factory[] factories = {
+                ArrayTabulatedFunction::new,
+                ArrayTabulatedFunctionExternalizable::new,
+                LinkedListTabulatedFunction::new,
+                LinkedListTabulatedFunctionExternalizable::new
+        };
+
+        for (int f = 0; f < factories.length; f++) {
+            for (int size = 10; size <= 10_000_000; size *= 10) {
+                evaluation(names[f], factories[f], size);
+            }
+        }
+        for (int f = 0; f < factories.length; f++) {
+            for (int size = 1_000; size <= 100_000; size *= 100) {
+                mutation(names[f], factories[f], size);
+            }
+        }
+        tabulation();
+    }
+
+    // getFunctionValue в случайных точках таблицы из size точек
+    private static void evaluation(String name, Factory factory, int size) throws Exception {
+        String title = "getFunctionValue " + name + " " + size;
+        if (!selected(title)) {
+            return;
+        }
+        TabulatedFunction function = create(factory, size);
+        double[] xs = randomPoints(0, size - 1);
+        measure(title, i -> function.getFunctionValue(xs[i & (INPUTS - 1)]));
+    }
+
+    // Вставка точки в середину случайного отрезка с удалением её же, чтобы размер таблицы не менялся,
+    // и сдвиг X случайной точки не дальше четверти шага от узла сетки, так что порядок точек сохраняется
+    private static void mutation(String name, Factory factory, int size) throws Exception {
+        String addTitle = "addPoint + deletePoint " + name + " " + size;
+        if (selected(addTitle)) {
+            TabulatedFunction function = create(factory, size);
+            int[] segments = randomIndices(0, size - 2);
+            measure(addTitle, i -> {
+                int segment = segments[i & (INPUTS - 1)];
+                function.addPoint(new FunctionPoint(segment + 0.5, segment));
+                function.deletePoint(segment + 1);
+                return function.getPointsCount();
+            });
+        }
+        String setTitle = "setPointX " + name + " " + size;
+        if (selected(setTitle)) {
+            TabulatedFunction function = create(factory, size);
+            int[] indices = randomIndices(1, size - 2);
+            double[] offsets = randomPoints(-0.25, 0.25);
+            measure(setTitle, i -> {
+                int index = indices[i & (INPUTS - 1)];
+                function.setPointX(index, index + offsets[i & (INPUTS - 1)]);
+                return index;
+            });
+        }
+    }
+
+    // Табулирование деревьев functions.meta: последовательно (10 000 точек) и параллельно (1 000 000 точек).
+    // При параллельном табулировании память выделяют и потоки пула, а учитывается только текущий поток
+    private static void tabulation() throws Exception {
+        Function deep = new Sin();
+        for (int i = 1; i <= 16; i++) {
+            deep = Functions.sum(deep, Functions.scale(Functions.shift(new Sin(), i, 0), 1, 1.0 / i));
+        }
+        Function exponent = Functions.composition(new Exp(), Functions.shift(Functions.scale(new Sin(), 2, 3), 1, -1));
+        Function[] trees = {
+                Functions.sum(Functions.power(new Sin(), 2), Functions.power(new Cos(), 2)),
+                exponent,
+                Functions.compile(exponent),
+                deep
+        };
+        String[] names = {"sin²(x) + cos²(x)", "exp(3 sin(2x + 2) - 1)", "exp(3 sin(2x + 2) - 1), compile", "сумма 17 синусов"};
+        for (int pointsCount = 10_000; pointsCount <= 1_000_000; pointsCount *= 100) {
+            for (int t = 0; t < trees.length; t++) {
+                Function tree = trees[t];
+                int count = pointsCount;
+                String title = "tabulate " + names[t] + " " + count;
+                if (selected(title)) {
+                    measure(title, i -> TabulatedFunctions.tabulate(tree, 0, 10, count).getPointY(count / 2));
+                }
+            }
+        }
+    }
+
+    private static boolean selected(String title) throws Exception {
+        if (filter != null && !filter.matcher(title).find()) {
+            return false;
+        }
+        if (child) {
+            return true;
+        }
+        fork(title);
+        return false;
+    }
+    // Измерение в новой JVM; её вывод (одна строка результата) идёт прямо в вывод этой
+    private static void fork(String title) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(HotPathBenchmark.class.getName());
+        command.add(CHILD);
+        command.add("^" + Pattern.quote(title) + "$");
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        int status = process.waitFor();
+        if (status != 0) {
+            throw new IllegalStateException("Измерение \"" + title + "\" завершилось с кодом " + status);
+        }
+    }
+
+    private static void measure(String title, Operation operation) throws Exception {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long threadId = Thread.currentThread().getId();
+        int batch = calibrate(operation);
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+            runIteration(operation, batch, new long[1]);
+        }
+
+        double[] throughput = new double[MEASUREMENT_ITERATIONS];
+        long totalOperations = 0;
+        long totalNanos = 0;
+        long allocated = threads == null ? 0 : threads.getThreadAllocatedBytes(threadId);
+        long collections = collectionCount();
+        for (int iteration = 0; iteration < MEASUREMENT_ITERATIONS; iteration++) {
+            long[] operations = new long[1];
+            long nanos = runIteration(operation, batch, operations);
+            throughput[iteration] = operations[0] * 1e9 / nanos;
+            totalOperations += operations[0];
+            totalNanos += nanos;
+        }
+        collections = collectionCount() - collections;
+        double mean = 0;
+        for (double value : throughput) {
+            mean += value / MEASUREMENT_ITERATIONS;
+        }
+        double variance = 0;
+        for (double value : throughput) {
+            variance += (value - mean) * (value - mean) / (MEASUREMENT_ITERATIONS - 1);
+        }
+        if (threads == null) {
+            System.out.printf("%-64s%16.1f%12.1f%14s%14s%6d%n", title, mean, Math.sqrt(variance), "-", "-", collections);
+            return;
+        }
+        allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.printf("%-64s%16.1f%12.1f%14.1f%14.1f%6d%n", title, mean, Math.sqrt(variance),
+                (double) allocated / totalOperations, allocated * 1e9 / totalNanos / (1 << 20), collections);
+    }
+    // Сколько операций выполнять между чтениями часов: примерно BATCH_NANOS, но не меньше одной
+    private static int calibrate(Operation operation) throws Exception {
+        double local = 0;
+        int count = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < 10 * BATCH_NANOS) {
+            local += operation.run(count++);
+        }
+        sink = local;
+        return Math.max(1, count / 10);
+    }
+    // Итерация длительностью не меньше ITERATION_NANOS; возвращает время, количество операций - в operations[0]
+    private static long runIteration(Operation operation, int batch, long[] operations) throws Exception {
+        double local = 0;
+        int i = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int b = 0; b < batch; b++) {
+                local += operation.run(i++);
+            }
+            operations[0] += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        sink = local;
+        return elapsed;
+    }
+
+    // Счётчик памяти, выделенной потоком, если JVM его поддерживает (HotSpot), иначе null
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+                if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                    return counter;
+                }
+            }
+        }
+        catch (LinkageError e) {
+            // Пакет com.sun.management недоступен: память не измеряется
+        }
+        return null;
+    }
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    // Таблица sin на сетке 0, 1, ..., size - 1; предыдущая таблица к этому времени уже не нужна
+    private static TabulatedFunction create(Factory factory, int size) {
+        System.gc();
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.sin(i);
+        }
+        return factory.create(0, size - 1, values);
+    }
+    private static double[] randomPoints(double from, double to) {
+        Random random = new Random(42);
+        double[] xs = new double[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            xs[i] = from + (to - from) * random.nextDouble();
+        }
+        return xs;
+    }
+    private static int[] randomIndices(int from, int to) {
+        Random random = new Random(42);
+        int[] indices = new int[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            indices[i] = from + random.nextInt(to - from + 1);
+        }
+        return indices;
+    }
+}
@@ -4,11 +4,18 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Arrays;
 
 public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction, Externalizable {
-    // Поля класса
+    private static final long serialVersionUID = 3229964603646160022L;
+
+    // Поля класса: координаты хранятся в параллельных массивах
     private int pointsCount;
-    private FunctionPoint[] points;
+    private double[] xValues;
+    private double[] yValues;
+    private IntervalSearch searchMode = IntervalSearch.BINARY; // Способ поиска отрезка интерполяции
+    private SplineCoefficients spline; // Коэффициенты кубической интерполяции, null для линейной
+    private double gridInverseStep; // 1 / шаг равномерной сетки абсцисс, NaN - сетка неравномерна, 0 - не проверялась
 
     // Конструкторы
     public ArrayTabulatedFunctionExternalizable(double leftX, double rightX, int pointsCount) {
@@ -20,11 +27,11 @@ public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction,
         }
 
         this.pointsCount = pointsCount;
-        this.points = new FunctionPoint[pointsCount + 5];
+        this.xValues = new double[pointsCount + 5];
+        this.yValues = new double[pointsCount + 5];
         double step = (rightX - leftX) / (pointsCount - 1);
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            points[i] = new FunctionPoint(x, 0.0);
+            xValues[i] = leftX + i * step;
         }
     }
     public ArrayTabulatedFunctionExternalizable(double leftX, double rightX, double[] values) {
@@ -36,12 +43,13 @@ public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction,
         }
 
         this.pointsCount = values.length;
-        this.points = new FunctionPoint[pointsCount + 5];
+        this.xValues = new double[pointsCount + 5];
+        this.yValues = new double[pointsCount + 5];
         double step = (rightX - leftX) / (pointsCount - 1);
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            points[i] = new FunctionPoint(x, values[i]);
+            xValues[i] = leftX + i * step;
         }
+        System.arraycopy(values, 0, yValues, 0, pointsCount);
     }
     public ArrayTabulatedFunctionExternalizable(FunctionPoint[] points) {
         if (points.length < 2) {
@@ -54,40 +62,115 @@ public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction,
         }
 
         this.pointsCount = points.length;
-        this.points = new FunctionPoint[pointsCount + 5];
+        this.xValues = new double[pointsCount + 5];
+        this.yValues = new double[pointsCount + 5];
         for (int i = 0; i < pointsCount; i++) {
-            this.points[i] = new FunctionPoint(points[i]);
+            xValues[i] = points[i].getX();
+            yValues[i] = points[i].getY();
         }
     }
     public ArrayTabulatedFunctionExternalizable() {
         // Инициализация по умолчанию
         this.pointsCount = 0;
-        this.points = new FunctionPoint[10];
+        this.xValues = new double[10];
+        this.yValues = new double[10];
     }
 
     // Реализация методов
     @Override
     public double getLeftDomainBorder() {
-        return points[0].getX();
+        return xValues[0];
     }
     @Override
     public double getRightDomainBorder() {
-        return points[pointsCount - 1].getX();
+        return xValues[pointsCount - 1];
     }
     @Override
     public double getFunctionValue(double x) {
         if (x < getLeftDomainBorder() || x > getRightDomainBorder())
             return Double.NaN;
-        for (int i = 0; i < pointsCount - 1; i++) {
-            double x1 = points[i].getX();
-            double x2 = points[i + 1].getX();
-            if (x >= x1 && x <= x2) {
-                double y1 = points[i].getY();
-                double y2 = points[i + 1].getY();
-                return y1 + ((y2 - y1) * (x - x1)) / (x2 - x1);
+        int i = searchMode.findSegment(xValues, pointsCount, x);
+        if (spline != null) {
+            spline.update(xValues, yValues, pointsCount);
+            return spline.value(xValues, yValues, i, x);
+        }
+        double x1 = xValues[i];
+        double x2 = xValues[i + 1];
+        double y1 = yValues[i];
+        double y2 = yValues[i + 1];
+        return y1 + ((y2 - y1) * (x - x1)) / (x2 - x1);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        // Границы и способ поиска читаются один раз на весь пакет
+        double left = xValues[0];
+        double right = xValues[pointsCount - 1];
+        IntervalSearch search = searchMode;
+        SplineCoefficients coefficients = spline;
+        if (coefficients != null) {
+            coefficients.update(xValues, yValues, pointsCount);
+        }
+        double inverseStep = uniformInverseStep();
+        boolean uniform = !Double.isNaN(inverseStep);
+        // На равномерной сетке отрезок находится за O(1) по номеру узла. Иначе, пока точки пакета
+        // идут по возрастанию, отрезок ищется проходом слиянием от предыдущего, так что упорядоченный
+        // пакет обрабатывается за O(n + m). Точка левее предыдущей ищется заново выбранным способом поиска
+        int i = 0;
+        double previous = Double.NaN;
+        int to = from + len;
+        for (int j = from; j < to; j++) {
+            double x = xs[j];
+            if (x < left || x > right) {
+                out[j] = Double.NaN;
+                continue;
+            }
+            if (uniform) {
+                i = IntervalSearch.findUniformSegment(xValues, pointsCount, x, inverseStep);
+            }
+            else if (x >= previous) {
+                i = IntervalSearch.findSegmentFrom(xValues, pointsCount, x, i);
             }
+            else {
+                i = search.findSegment(xValues, pointsCount, x);
+            }
+            previous = x;
+            if (coefficients != null) {
+                out[j] = coefficients.value(xValues, yValues, i, x);
+                continue;
+            }
+            double x1 = xValues[i];
+            double x2 = xValues[i + 1];
+            double y1 = yValues[i];
+            double y2 = yValues[i + 1];
+            out[j] = y1 + ((y2 - y1) * (x - x1)) / (x2 - x1);
+        }
+    }
+    // Сетка проверяется при первом пакетном вычислении после изменения абсцисс, за O(n)
+    private double uniformInverseStep() {
+        if (gridInverseStep == 0) {
+            gridInverseStep = 1 / CompactFormat.uniformStep(xValues, pointsCount);
         }
-        return Double.NaN;
+        return gridInverseStep;
+    }
+    public IntervalSearch getSearchMode() {
+        return searchMode;
+    }
+    public void setSearchMode(IntervalSearch searchMode) {
+        if (searchMode == null) {
+            throw new IllegalArgumentException("Способ поиска не может быть null");
+        }
+        this.searchMode = searchMode;
+    }
+    public Interpolation getInterpolation() {
+        return spline == null ? Interpolation.LINEAR : spline.getInterpolation();
+    }
+    // Кубические способы хранят по три коэффициента на точку; они вычисляются при первом
+    // вычислении значения и затем пересчитываются только вокруг изменённых точек
+    public void setInterpolation(Interpolation interpolation) {
+        if (interpolation == null) {
+            throw new IllegalArgumentException("Способ интерполяции не может быть null");
+        }
+        this.spline = interpolation == Interpolation.LINEAR ? null : new SplineCoefficients(interpolation);
     }
     @Override
     public int getPointsCount() {
@@ -98,7 +181,7 @@ public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction,
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + pointsCount);
         }
-        return new FunctionPoint(points[index]);
+        return new FunctionPoint(xValues[index], yValues[index]);
     }
     @Override
     public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
@@ -106,21 +189,26 @@ public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction,
             throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + pointsCount);
         }
 
-        if (index > 0 && point.getX() <= points[index - 1].getX()) {
-            throw new InappropriateFunctionPointException("Точка x=" + point.getX() + " должно быть больше предыдущей точки x=" + points[index - 1].getX());
+        if (index > 0 && point.getX() <= xValues[index - 1]) {
+            throw new InappropriateFunctionPointException("Точка x=" + point.getX() + " должно быть больше предыдущей точки x=" + xValues[index - 1]);
         }
-        if (index < pointsCount - 1 && point.getX() >= points[index + 1].getX()) {
-            throw new InappropriateFunctionPointException("Точка x=" + point.getX() + " должно быть меньше следующей точки x=" + points[index + 1].getX());
+        if (index < pointsCount - 1 && point.getX() >= xValues[index + 1]) {
+            throw new InappropriateFunctionPointException("Точка x=" + point.getX() + " должно быть меньше следующей точки x=" + xValues[index + 1]);
         }
 
-        points[index] = new FunctionPoint(point);
+        xValues[index] = point.getX();
+        yValues[index] = point.getY();
+        gridInverseStep = 0;
+        if (spline != null) {
+            spline.pointChanged(index);
+        }
     }
     @Override
     public double getPointX(int index) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + pointsCount);
         }
-        return points[index].getX();
+        return xValues[index];
     }
     @Override
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
@@ -128,28 +216,35 @@ public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction,
             throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + pointsCount);
         }
 
-        if (index > 0 && x <= points[index - 1].getX()) {
-            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть больше предыдущей точки x= " + points[index - 1].getX());
+        if (index > 0 && x <= xValues[index - 1]) {
+            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть больше предыдущей точки x= " + xValues[index - 1]);
         }
-        if (index < pointsCount - 1 && x >= points[index + 1].getX()) {
-            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть меньше следующей точки x= " + points[index + 1].getX());
+        if (index < pointsCount - 1 && x >= xValues[index + 1]) {
+            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть меньше следующей точки x= " + xValues[index + 1]);
         }
 
-        points[index].setX(x);
+        xValues[index] = x;
+        gridInverseStep = 0;
+        if (spline != null) {
+            spline.pointChanged(index);
+        }
     }
     @Override
     public double getPointY(int index) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + pointsCount);
         }
-        return points[index].getY();
+        return yValues[index];
     }
     @Override
     public void setPointY(int index, double y) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количеств: " + pointsCount);
         }
-        points[index].setY(y);
+        yValues[index] = y;
+        if (spline != null) {
+            spline.pointChanged(index);
+        }
     }
     @Override
     public void deletePoint(int index) {
@@ -161,48 +256,178 @@ public class ArrayTabulatedFunctionExternalizable implements TabulatedFunction,
             throw new IllegalStateException("Невозможно удалить точку: требуется минимум 2 точки, текущая: " + pointsCount);
         }
 
-        System.arraycopy(points, index + 1, points, index, pointsCount - index - 1);
+        System.arraycopy(xValues, index + 1, xValues, index, pointsCount - index - 1);
+        System.arraycopy(yValues, index + 1, yValues, index, pointsCount - index - 1);
         pointsCount--;
+        gridInverseStep = 0;
+        if (spline != null) {
+            spline.pointDeleted(index, pointsCount);
+        }
     }
     @Override
     public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
-        int insertIndex = 0;
-        while (insertIndex < pointsCount && points[insertIndex].getX() < point.getX()) {
-            insertIndex++;
-        }
+        int insertIndex = lowerBound(point.getX());
 
-        if (insertIndex < pointsCount && Math.abs(points[insertIndex].getX() - point.getX()) < Double.MIN_VALUE) {
+        if (insertIndex < pointsCount && Math.abs(xValues[insertIndex] - point.getX()) < Double.MIN_VALUE) {
             throw new InappropriateFunctionPointException("Точка с х= " + point.getX() + " уже существует по индексу " + insertIndex);
         }
 
-        if (pointsCount >= points.length) {
-            FunctionPoint[] newPoints = new FunctionPoint[points.length + 5];
-            System.arraycopy(points, 0, newPoints, 0, pointsCount);
-            points = newPoints;
+        ensureCapacity(pointsCount + 1);
+        System.arraycopy(xValues, insertIndex, xValues, insertIndex + 1, pointsCount - insertIndex);
+        System.arraycopy(yValues, insertIndex, yValues, insertIndex + 1, pointsCount - insertIndex);
+        xValues[insertIndex] = point.getX();
+        yValues[insertIndex] = point.getY();
+        pointsCount++;
+        gridInverseStep = 0;
+        if (spline != null) {
+            spline.pointInserted(insertIndex, pointsCount);
+        }
+    }
+    // Добавление набора точек за один проход: набор упорядочивается по X и сливается с таблицей
+    // за O(n + m) вместо m вставок по O(n). Совпадение X проверяется так же, как в addPoint,
+    // и с точками таблицы, и внутри набора; при совпадении или X, равном NaN, таблица не меняется
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        int count = points.length;
+        double[] newX = new double[count];
+        double[] newY = new double[count];
+        boolean ordered = true;
+        for (int j = 0; j < count; j++) {
+            newX[j] = points[j].getX();
+            newY[j] = points[j].getY();
+            if (Double.isNaN(newX[j])) {
+                throw new InappropriateFunctionPointException("Абсцисса добавляемой точки не может быть NaN");
+            }
+            ordered &= j == 0 || newX[j] >= newX[j - 1];
+        }
+        if (!ordered) {
+            // Уже упорядоченный набор, например поток измерений, не сортируется
+            sortByX(newX, newY, count);
+        }
+        for (int j = 1; j < count; j++) {
+            if (Math.abs(newX[j] - newX[j - 1]) < Double.MIN_VALUE) {
+                throw new InappropriateFunctionPointException("Точка с х= " + newX[j] + " повторяется в добавляемом наборе");
+            }
+        }
+        // Проверка совпадений с таблицей до изменения массивов: i - индекс, который для этой точки нашёл бы addPoint.
+        // Таблица левее первой новой точки не просматривается, так что добавление в конец стоит O(m)
+        int i = count > 0 ? lowerBound(newX[0]) : 0;
+        for (int j = 0; j < count; j++) {
+            while (i < pointsCount && xValues[i] < newX[j]) {
+                i++;
+            }
+            if (i < pointsCount && Math.abs(xValues[i] - newX[j]) < Double.MIN_VALUE) {
+                throw new InappropriateFunctionPointException("Точка с х= " + newX[j] + " уже существует по индексу " + i);
+            }
         }
 
-        System.arraycopy(points, insertIndex, points, insertIndex + 1, pointsCount - insertIndex);
-        points[insertIndex] = new FunctionPoint(point);
-        pointsCount++;
+        // Слияние с конца, на месте: каждый элемент сдвигается не больше одного раза
+        ensureCapacity(pointsCount + count);
+        i = pointsCount - 1;
+        int j = count - 1;
+        for (int k = pointsCount + count - 1; j >= 0; k--) {
+            if (i >= 0 && !(xValues[i] < newX[j])) {
+                xValues[k] = xValues[i];
+                yValues[k] = yValues[i];
+                i--;
+            }
+            else {
+                xValues[k] = newX[j];
+                yValues[k] = newY[j];
+                j--;
+            }
+        }
+        pointsCount += count;
+        gridInverseStep = 0;
+        if (spline != null) {
+            spline.invalidate();
+        }
+    }
+    // Устойчивая сортировка пар (x, y) по возрастанию x слиянием снизу вверх
+    private static void sortByX(double[] x, double[] y, int count) {
+        double[] sourceX = x;
+        double[] sourceY = y;
+        double[] targetX = new double[count];
+        double[] targetY = new double[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int left = 0; left < count; left += 2 * width) {
+                int middle = Math.min(left + width, count);
+                int right = Math.min(left + 2 * width, count);
+                int i = left;
+                int j = middle;
+                for (int k = left; k < right; k++) {
+                    if (i < middle && (j >= right || sourceX[i] <= sourceX[j])) {
+                        targetX[k] = sourceX[i];
+                        targetY[k] = sourceY[i];
+                        i++;
+                    }
+                    else {
+                        targetX[k] = sourceX[j];
+                        targetY[k] = sourceY[j];
+                        j++;
+                    }
+                }
+            }
+            double[] swap = sourceX;
+            sourceX = targetX;
+            targetX = swap;
+            swap = sourceY;
+            sourceY = targetY;
+            targetY = swap;
+        }
+        if (sourceX != x) {
+            System.arraycopy(sourceX, 0, x, 0, count);
+            System.arraycopy(sourceY, 0, y, 0, count);
+        }
+    }
+    // Первый индекс с X не меньше x (для x = NaN - 0, как при последовательном просмотре)
+    private int lowerBound(double x) {
+        int low = 0;
+        int high = pointsCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (xValues[middle] < x) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    // Рост массивов в полтора раза, чтобы n вставок подряд стоили O(n) копирований в сумме
+    private void ensureCapacity(int capacity) {
+        if (capacity > xValues.length) {
+            int length = Math.max(capacity, xValues.length + (xValues.length >> 1));
+            xValues = Arrays.copyOf(xValues, length);
+            yValues = Arrays.copyOf(yValues, length);
+        }
     }
 
     // Реализация методов Externalizable
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        // Точки записываются упакованными блоками, см. PointBlocks
+        out.writeInt(PointBlocks.MARKER);
         out.writeInt(pointsCount);
-        for (int i = 0; i < pointsCount; i++) {
-            out.writeDouble(points[i].getX());
-            out.writeDouble(points[i].getY());
-        }
+        PointBlocks.write(out, xValues, yValues, pointsCount);
     }
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        pointsCount = in.readInt();
-        points = new FunctionPoint[pointsCount + 5];
+        int first = in.readInt();
+        if (first == PointBlocks.MARKER) {
+            pointsCount = PointBlocks.checkCount(in.readInt());
+            xValues = new double[pointsCount + 5];
+            yValues = new double[pointsCount + 5];
+            PointBlocks.read(in, xValues, yValues, pointsCount);
+            return;
+        }
+        // Прежняя форма: количество точек и пары writeDouble
+        pointsCount = PointBlocks.checkCount(first);
+        xValues = new double[pointsCount + 5];
+        yValues = new double[pointsCount + 5];
         for (int i = 0; i < pointsCount; i++) {
-            double x = in.readDouble();
-            double y = in.readDouble();
-            points[i] = new FunctionPoint(x, y);
+            xValues[i] = in.readDouble();
+            yValues[i] = in.readDouble();
         }
     }
 }
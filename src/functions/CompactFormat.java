@@ -0,0 +1,166 @@
+package functions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+// Компактный двоичный формат табулированной функции (big-endian):
+//   int    MAGIC
+//   byte   версия формата
+//   byte   флаги: бит 0 - равномерная сетка, биты 1-2 - ValueEncoding значений
+//   int    количество точек
+//   int    размер данных в байтах
+//   int    CRC32 полей заголовка от версии до размера данных и самих данных
+// Данные: для равномерной сетки double x[0] и double шаг, иначе все x в выбранном кодировании;
+// затем все y в том же кодировании.
+// Старший байт MAGIC отрицателен, а старый формат outputTabulatedFunction начинается
+// с количества точек не меньше 2, поэтому читатели различают форматы по первым 4 байтам
+final class CompactFormat {
+    static final int MAGIC = 0x8A54464E;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 18; // Вместе с MAGIC
+    private static final int UNIFORM_GRID = 1;
+    private static final int ENCODING_SHIFT = 1;
+    private static final int ENCODING_MASK = 3;
+    private static final int KNOWN_FLAGS = UNIFORM_GRID | ENCODING_MASK << ENCODING_SHIFT;
+    private static final ValueEncoding[] ENCODINGS = ValueEncoding.values();
+
+    private CompactFormat() {
+        throw new AssertionError("Невозможно создать экземпляр класса CompactFormat");
+    }
+
+    // Заголовок и данные целиком, в буфере от 0 до limit
+    static ByteBuffer encode(TabulatedFunction function, ValueEncoding encoding) {
+        int pointsCount = function.getPointsCount();
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = function.getPointX(i);
+            yValues[i] = function.getPointY(i);
+        }
+        double step = uniformStep(xValues, pointsCount);
+        boolean uniform = !Double.isNaN(step);
+
+        long maxSize = HEADER_SIZE + (uniform ? 16 : encoding.maxEncodedSize(pointsCount))
+                + encoding.maxEncodedSize(pointsCount);
+        if (maxSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Табулированная функция слишком велика для компактного формата: "
+                    + pointsCount + " точек");
+        }
+        byte[] bytes = new byte[(int) maxSize];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int position = HEADER_SIZE;
+        if (uniform) {
+            buffer.putDouble(position, xValues[0]);
+            buffer.putDouble(position + 8, step);
+            position += 16;
+        }
+        else {
+            position = encoding.encode(xValues, pointsCount, bytes, position);
+        }
+        position = encoding.encode(yValues, pointsCount, bytes, position);
+
+        buffer.putInt(0, MAGIC);
+        buffer.put(4, (byte) VERSION);
+        buffer.put(5, (byte) ((uniform ? UNIFORM_GRID : 0) | encoding.ordinal() << ENCODING_SHIFT));
+        buffer.putInt(6, pointsCount);
+        buffer.putInt(10, position - HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 4, 10);
+        crc.update(bytes, HEADER_SIZE, position - HEADER_SIZE);
+        buffer.putInt(14, (int) crc.getValue());
+        buffer.limit(position);
+        return buffer;
+    }
+
+    // Проверка заголовка без MAGIC (HEADER_SIZE - 4 байт); возвращает размер данных
+    static int payloadLength(byte[] header) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        int version = buffer.get(0);
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия формата табулированной функции: " + version);
+        }
+        int flags = buffer.get(1);
+        if ((flags & ~KNOWN_FLAGS) != 0 || (flags >> ENCODING_SHIFT & ENCODING_MASK) >= ENCODINGS.length) {
+            throw new IOException("Неизвестные флаги формата табулированной функции: " + flags);
+        }
+        int pointsCount = buffer.getInt(2);
+        if (pointsCount < 2) {
+            throw new IOException("Некорректное количество точек: " + pointsCount);
+        }
+        int length = buffer.getInt(6);
+        // Размер проверяется до выделения памяти под данные, и снизу тоже: иначе заголовок с огромным
+        // количеством точек и короткими данными заставил бы decode выделить массивы под все точки
+        ValueEncoding encoding = ENCODINGS[flags >> ENCODING_SHIFT & ENCODING_MASK];
+        boolean uniform = (flags & UNIFORM_GRID) != 0;
+        long minLength = (uniform ? 16 : encoding.minEncodedSize(pointsCount)) + encoding.minEncodedSize(pointsCount);
+        long maxLength = (uniform ? 16 : encoding.maxEncodedSize(pointsCount)) + encoding.maxEncodedSize(pointsCount);
+        if (length < minLength || length > maxLength) {
+            throw new IOException("Некорректный размер данных табулированной функции: " + length);
+        }
+        return length;
+    }
+    // Разбор данных после проверки заголовка payloadLength
+    static TabulatedFunction decode(byte[] header, byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        int flags = buffer.get(1);
+        int pointsCount = buffer.getInt(2);
+        CRC32 crc = new CRC32();
+        crc.update(header, 0, 10);
+        crc.update(payload, 0, payload.length);
+        if ((int) crc.getValue() != buffer.getInt(10)) {
+            throw new IOException("Контрольная сумма табулированной функции не совпадает");
+        }
+
+        ValueEncoding encoding = ENCODINGS[flags >> ENCODING_SHIFT & ENCODING_MASK];
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        try {
+            int position = 0;
+            if ((flags & UNIFORM_GRID) != 0) {
+                ByteBuffer data = ByteBuffer.wrap(payload);
+                double left = data.getDouble(0);
+                double step = data.getDouble(8);
+                for (int i = 0; i < pointsCount; i++) {
+                    xValues[i] = left + i * step;
+                }
+                position = 16;
+            }
+            else {
+                position = encoding.decode(payload, position, xValues, pointsCount);
+            }
+            position = encoding.decode(payload, position, yValues, pointsCount);
+            if (position != payload.length) {
+                throw new IOException("Лишние байты в данных табулированной функции");
+            }
+            // Неупорядоченные абсциссы и NaN отвергает конструктор
+            return new ArrayTabulatedFunction(xValues, yValues, pointsCount);
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Повреждённые данные табулированной функции", e);
+        }
+    }
+
+    // Шаг, при котором x[0] + i * step побитово совпадает со всеми абсциссами, или NaN.
+    // Сетка tabulate строится именно так, но её шаг, вычисленный по границам, мог округлиться,
+    // поэтому проверяются шаг по крайним точкам, соседние с ним значения и шаг по первому отрезку
+    static double uniformStep(double[] xValues, int pointsCount) {
+        double left = xValues[0];
+        double step = (xValues[pointsCount - 1] - left) / (pointsCount - 1);
+        double[] candidates = {step, Math.nextUp(step), Math.nextDown(step), xValues[1] - left};
+        for (double candidate : candidates) {
+            if (isGrid(xValues, pointsCount, left, candidate)) {
+                return candidate;
+            }
+        }
+        return Double.NaN;
+    }
+    private static boolean isGrid(double[] xValues, int pointsCount, double left, double step) {
+        for (int i = 1; i < pointsCount; i++) {
+            if (Double.doubleToRawLongBits(left + i * step) != Double.doubleToRawLongBits(xValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
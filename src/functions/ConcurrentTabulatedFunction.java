@@ -0,0 +1,431 @@
+package functions;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+// Потокобезопасная табулированная функция для частого чтения и редкой записи.
+// Чтение (значение функции, координаты точек) идёт оптимистично через StampedLock: потоки
+// не захватывают блокировку и ничего не записывают в общую память, а после чтения проверяют,
+// что за это время не было записи. Если запись была, чтение повторяется под блокировкой чтения.
+// Изменения выполняются под блокировкой записи с теми же проверками и исключениями,
+// что в ArrayTabulatedFunction, поэтому каждое изменение атомарно и порядок точек не нарушается
+public class ConcurrentTabulatedFunction implements TabulatedFunction {
+    private static final long serialVersionUID = 6093458713225417318L;
+
+    // Поля изменяются только под блокировкой записи. Оптимистичное чтение может увидеть их
+    // в промежуточном состоянии, поэтому оно не выходит за границы массивов и не выбрасывает
+    // исключений, а результат используется только после успешной проверки lock.validate
+    private transient double[] xValues;
+    private transient double[] yValues;
+    private transient int pointsCount;
+    private transient StampedLock lock = new StampedLock();
+
+    // Конструкторы
+    public ConcurrentTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this(leftX, rightX, new double[checkPointsCount(pointsCount)]);
+    }
+    public ConcurrentTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница должна быть меньше правой границы: " + leftX + " >= " + rightX);
+        }
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Количество баллов должно быть не менее 2: " + values.length);
+        }
+
+        this.pointsCount = values.length;
+        this.xValues = new double[pointsCount];
+        this.yValues = values.clone();
+        double step = (rightX - leftX) / (pointsCount - 1);
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = leftX + i * step;
+        }
+    }
+    public ConcurrentTabulatedFunction(FunctionPoint[] points) {
+        if (points.length < 2) {
+            throw new IllegalArgumentException("Требуется как минимум 2 точки");
+        }
+        for (int i = 1; i < points.length; i++) {
+            if (points[i].getX() <= points[i - 1].getX()) {
+                throw new IllegalArgumentException("Точки должны быть упорядочены по возрастанию X");
+            }
+        }
+
+        this.pointsCount = points.length;
+        this.xValues = new double[pointsCount];
+        this.yValues = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = points[i].getX();
+            yValues[i] = points[i].getY();
+        }
+    }
+    // Копия любой табулированной функции, например для замены обёртки в synchronized
+    public ConcurrentTabulatedFunction(TabulatedFunction function) {
+        this.pointsCount = function.getPointsCount();
+        this.xValues = new double[pointsCount];
+        this.yValues = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = function.getPointX(i);
+            yValues[i] = function.getPointY(i);
+        }
+    }
+
+    // Чтение
+    @Override
+    public double getLeftDomainBorder() {
+        long stamp = lock.tryOptimisticRead();
+        double left = xValues[0];
+        if (lock.validate(stamp)) {
+            return left;
+        }
+        stamp = lock.readLock();
+        try {
+            return xValues[0];
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    @Override
+    public double getRightDomainBorder() {
+        long stamp = lock.tryOptimisticRead();
+        double right = rightBorder(xValues, pointsCount);
+        if (lock.validate(stamp)) {
+            return right;
+        }
+        stamp = lock.readLock();
+        try {
+            return xValues[pointsCount - 1];
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        long stamp = lock.tryOptimisticRead();
+        double value = interpolate(xValues, yValues, pointsCount, x);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return interpolate(xValues, yValues, pointsCount, x);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        // При вычислении на месте неудачная оптимистичная попытка испортила бы xs,
+        // поэтому такой пакет сразу вычисляется под блокировкой чтения
+        if (xs != out) {
+            long stamp = lock.tryOptimisticRead();
+            interpolateAll(xValues, yValues, pointsCount, xs, out, from, len);
+            if (lock.validate(stamp)) {
+                return;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            interpolateAll(xValues, yValues, pointsCount, xs, out, from, len);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    @Override
+    public int getPointsCount() {
+        long stamp = lock.tryOptimisticRead();
+        int count = pointsCount;
+        if (lock.validate(stamp)) {
+            return count;
+        }
+        stamp = lock.readLock();
+        try {
+            return pointsCount;
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    @Override
+    public FunctionPoint getPoint(int index) {
+        long stamp = lock.tryOptimisticRead();
+        int count = pointsCount;
+        double[] xs = xValues;
+        double[] ys = yValues;
+        boolean inside = index >= 0 && index < count && index < xs.length && index < ys.length;
+        double x = inside ? xs[index] : 0;
+        double y = inside ? ys[index] : 0;
+        if (lock.validate(stamp)) {
+            checkIndex(index, count);
+            return new FunctionPoint(x, y);
+        }
+        stamp = lock.readLock();
+        try {
+            checkIndex(index, pointsCount);
+            return new FunctionPoint(xValues[index], yValues[index]);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    @Override
+    public double getPointX(int index) {
+        long stamp = lock.tryOptimisticRead();
+        int count = pointsCount;
+        double[] xs = xValues;
+        double x = index >= 0 && index < count && index < xs.length ? xs[index] : 0;
+        if (lock.validate(stamp)) {
+            checkIndex(index, count);
+            return x;
+        }
+        stamp = lock.readLock();
+        try {
+            checkIndex(index, pointsCount);
+            return xValues[index];
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    @Override
+    public double getPointY(int index) {
+        long stamp = lock.tryOptimisticRead();
+        int count = pointsCount;
+        double[] ys = yValues;
+        double y = index >= 0 && index < count && index < ys.length ? ys[index] : 0;
+        if (lock.validate(stamp)) {
+            checkIndex(index, count);
+            return y;
+        }
+        stamp = lock.readLock();
+        try {
+            checkIndex(index, pointsCount);
+            return yValues[index];
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Изменение
+    @Override
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index, pointsCount);
+            checkOrder(index, point.getX());
+            xValues[index] = point.getX();
+            yValues[index] = point.getY();
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    @Override
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index, pointsCount);
+            checkOrder(index, x);
+            xValues[index] = x;
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    @Override
+    public void setPointY(int index, double y) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index, pointsCount);
+            yValues[index] = y;
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    @Override
+    public void deletePoint(int index) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index, pointsCount);
+            if (pointsCount < 3) {
+                throw new IllegalStateException("Невозможно удалить точку: требуется минимум 2 точки, текущая: " + pointsCount);
+            }
+            System.arraycopy(xValues, index + 1, xValues, index, pointsCount - index - 1);
+            System.arraycopy(yValues, index + 1, yValues, index, pointsCount - index - 1);
+            pointsCount--;
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    @Override
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            int insertIndex = lowerBound(point.getX());
+            if (insertIndex < pointsCount && Math.abs(xValues[insertIndex] - point.getX()) < Double.MIN_VALUE) {
+                throw new InappropriateFunctionPointException("Точка с х= " + point.getX() + " уже существует по индексу " + insertIndex);
+            }
+            if (pointsCount == xValues.length) {
+                // Рост в полтора раза; новые массивы заполняются до публикации
+                int length = pointsCount + (pointsCount >> 1) + 1;
+                xValues = Arrays.copyOf(xValues, length);
+                yValues = Arrays.copyOf(yValues, length);
+            }
+            System.arraycopy(xValues, insertIndex, xValues, insertIndex + 1, pointsCount - insertIndex);
+            System.arraycopy(yValues, insertIndex, yValues, insertIndex + 1, pointsCount - insertIndex);
+            xValues[insertIndex] = point.getX();
+            yValues[insertIndex] = point.getY();
+            pointsCount++;
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Вспомогательные методы. Статические методы работают с переданными массивами и размером
+    // и пригодны для оптимистичного чтения: на несогласованных данных они возвращают
+    // произвольный результат, но не выходят за границы массивов и не зацикливаются
+    private static int checkPointsCount(int pointsCount) {
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество баллов должно быть не менее 2: " + pointsCount);
+        }
+        return pointsCount;
+    }
+    private static void checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + count);
+        }
+    }
+    // Вызывается под блокировкой записи
+    private void checkOrder(int index, double x) throws InappropriateFunctionPointException {
+        if (index > 0 && x <= xValues[index - 1]) {
+            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть больше предыдущей точки x= " + xValues[index - 1]);
+        }
+        if (index < pointsCount - 1 && x >= xValues[index + 1]) {
+            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть меньше следующей точки x= " + xValues[index + 1]);
+        }
+    }
+    // Первый индекс с X не меньше x; вызывается под блокировкой записи
+    private int lowerBound(double x) {
+        int low = 0;
+        int high = pointsCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (xValues[middle] < x) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    private static boolean isConsistent(double[] xs, double[] ys, int count) {
+        return count >= 2 && count <= xs.length && count <= ys.length;
+    }
+    private static double rightBorder(double[] xs, int count) {
+        return count >= 1 && count <= xs.length ? xs[count - 1] : Double.NaN;
+    }
+    private static double interpolate(double[] xs, double[] ys, int count, double x) {
+        if (!isConsistent(xs, ys, count) || x < xs[0] || x > xs[count - 1]) {
+            return Double.NaN;
+        }
+        int i = findSegment(xs, count, x, 0);
+        double x1 = xs[i];
+        double x2 = xs[i + 1];
+        double y1 = ys[i];
+        double y2 = ys[i + 1];
+        return y1 + ((y2 - y1) * (x - x1)) / (x2 - x1);
+    }
+    private static void interpolateAll(double[] xs, double[] ys, int count, double[] points, double[] out, int from, int len) {
+        int to = from + len;
+        if (!isConsistent(xs, ys, count)) {
+            Arrays.fill(out, from, to, Double.NaN);
+            return;
+        }
+        double left = xs[0];
+        double right = xs[count - 1];
+        // Пока точки пакета идут по возрастанию, поиск продолжается от предыдущего отрезка
+        int i = 0;
+        double previous = Double.NaN;
+        for (int j = from; j < to; j++) {
+            double x = points[j];
+            if (x < left || x > right) {
+                out[j] = Double.NaN;
+                continue;
+            }
+            i = findSegment(xs, count, x, x >= previous ? i : 0);
+            previous = x;
+            double x1 = xs[i];
+            double x2 = xs[i + 1];
+            double y1 = ys[i];
+            double y2 = ys[i + 1];
+            out[j] = y1 + ((y2 - y1) * (x - x1)) / (x2 - x1);
+        }
+    }
+    // Наименьший i >= start, для которого x[i] <= x <= x[i + 1]: галоп от start, затем двоичный поиск.
+    // Результат всегда лежит в [start, count - 2]
+    private static int findSegment(double[] xs, int count, double x, int start) {
+        int low = start;
+        int high = count - 1;
+        for (int step = 1; low + step < high; step <<= 1) {
+            if (xs[low + step] >= x) {
+                high = low + step;
+                break;
+            }
+            low += step;
+        }
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (xs[middle] < x) {
+                low = middle;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Сериализация: снимок точек под блокировкой чтения, упакованными блоками (см. PointBlocks)
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            out.defaultWriteObject();
+            out.writeInt(pointsCount);
+            PointBlocks.write(out, xValues, yValues, pointsCount);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = PointBlocks.checkCount(in.readInt());
+        if (count < 2) {
+            throw new InvalidObjectException("Требуется как минимум 2 точки");
+        }
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        PointBlocks.read(in, xs, ys, count);
+        for (int i = 1; i < count; i++) {
+            if (!(xs[i] > xs[i - 1])) {
+                throw new InvalidObjectException("Точки должны быть упорядочены по возрастанию X");
+            }
+        }
+        xValues = xs;
+        yValues = ys;
+        pointsCount = count;
+        lock = new StampedLock();
+    }
+}
@@ -4,4 +4,19 @@ public interface Function {
     double getLeftDomainBorder();
     double getRightDomainBorder();
     double getFunctionValue(double x);
+
+    // Вычисление без проверки области определения: вызывающий уже проверил, что x в ней лежит.
+    // Узлы functions.meta передают вызов дальше по дереву, не проверяя границы на каждом уровне
+    default double evaluateUnchecked(double x) {
+        return getFunctionValue(x);
+    }
+
+    // Пакетное вычисление: out[i] = f(xs[i]) для i от from до from + len - 1.
+    // Массивы xs и out могут совпадать (вычисление на месте)
+    default void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            out[i] = getFunctionValue(xs[i]);
+        }
+    }
 }
@@ -25,4 +25,30 @@ public class Functions {
     public static Function composition(Function f1, Function f2) {
         return new Composition(f1, f2);
     }
+    // Упрощённое равносильное дерево выражения, см. Simplifier
+    public static Function simplify(Function f) {
+        return simplify(f, new Simplifier());
+    }
+    // То же с переданным упростителем: количество убранных узлов накапливается в нём (getEliminatedNodes)
+    public static Function simplify(Function f, Simplifier simplifier) {
+        return simplifier.simplify(f);
+    }
+    // То же выражение, скомпилированное в одну цепочку вызовов, см. ExpressionCompiler
+    public static Function compile(Function f) {
+        return ExpressionCompiler.compile(f);
+    }
+    // Функция с кэшем последних вычисленных значений, см. CachedFunction
+    public static CachedFunction cached(Function f, int capacity) {
+        return new CachedFunction(f, capacity, CachedFunction.Eviction.LRU, 0);
+    }
+    public static CachedFunction cached(Function f, int capacity, CachedFunction.Eviction eviction, double quantum) {
+        return new CachedFunction(f, capacity, eviction, quantum);
+    }
+    // Приближение рядом Чебышёва на [left, right], см. ChebyshevApproximation
+    public static ChebyshevApproximation chebyshev(Function f, double left, double right, int degree) {
+        return ChebyshevApproximation.fit(f, left, right, degree);
+    }
+    public static ChebyshevApproximation chebyshev(Function f, double left, double right, int degree, int pieces) {
+        return ChebyshevApproximation.fit(f, left, right, degree, pieces);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package functions;
+
+// Способы интерполяции между точками табулированной функции.
+// Кубические способы задают в каждой точке производную, и на отрезке между соседними точками
+// строится кубический многочлен Эрмита по значениям и производным на концах. Способы различаются
+// тем, как выбирается производная и от скольких соседних точек она зависит
+public enum Interpolation {
+    // Ломаная через точки таблицы; коэффициенты не нужны
+    LINEAR {
+        @Override
+        int reach() {
+            return 0;
+        }
+        @Override
+        void slopes(double[] x, double[] y, int count, double[] slopes, int from, int to) {
+            throw new AssertionError("Линейная интерполяция вычисляется без производных");
+        }
+    },
+    // Естественный кубический сплайн: непрерывна вторая производная, на концах она равна нулю.
+    // Производные находятся из трёхдиагональной системы по всей таблице (метод прогонки, O(n)),
+    // поэтому любое изменение точки пересчитывает их все
+    NATURAL_CUBIC {
+        @Override
+        int reach() {
+            return -1;
+        }
+        @Override
+        void slopes(double[] x, double[] y, int count, double[] slopes, int from, int to) {
+            // Вторые производные m[i]: h[i-1] m[i-1] + 2 (h[i-1] + h[i]) m[i] + h[i] m[i+1] = 6 (d[i] - d[i-1]),
+            // m[0] = m[count-1] = 0. Прямой ход прогонки хранит в upper коэффициенты при m[i+1]
+            double[] upper = new double[count];
+            double[] m = new double[count];
+            for (int i = 1; i < count - 1; i++) {
+                double hLeft = x[i] - x[i - 1];
+                double hRight = x[i + 1] - x[i];
+                double rhs = 6 * ((y[i + 1] - y[i]) / hRight - (y[i] - y[i - 1]) / hLeft);
+                double pivot = 2 * (hLeft + hRight) - hLeft * upper[i - 1];
+                upper[i] = hRight / pivot;
+                m[i] = (rhs - hLeft * m[i - 1]) / pivot;
+            }
+            for (int i = count - 3; i >= 1; i--) {
+                m[i] -= upper[i] * m[i + 1];
+            }
+            for (int i = 0; i < count - 1; i++) {
+                double h = x[i + 1] - x[i];
+                slopes[i] = (y[i + 1] - y[i]) / h - h * (2 * m[i] + m[i + 1]) / 6;
+            }
+            double h = x[count - 1] - x[count - 2];
+            slopes[count - 1] = (y[count - 1] - y[count - 2]) / h + h * (m[count - 2] + 2 * m[count - 1]) / 6;
+        }
+    },
+    // Монотонный кубический сплайн Фрича - Карлсона: на участках монотонности таблицы
+    // интерполянт тоже монотонен и не даёт выбросов. Производная - среднее наклонов соседних
+    // отрезков, ограниченное утроенным меньшим из них (достаточное условие Фрича - Карлсона),
+    // и ноль в локальных экстремумах. Зависит только от соседних точек
+    MONOTONE_CUBIC {
+        @Override
+        int reach() {
+            return 1;
+        }
+        @Override
+        void slopes(double[] x, double[] y, int count, double[] slopes, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (i == 0) {
+                    slopes[i] = (y[1] - y[0]) / (x[1] - x[0]);
+                    continue;
+                }
+                if (i == count - 1) {
+                    slopes[i] = (y[i] - y[i - 1]) / (x[i] - x[i - 1]);
+                    continue;
+                }
+                double left = (y[i] - y[i - 1]) / (x[i] - x[i - 1]);
+                double right = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
+                if (!(left * right > 0)) {
+                    slopes[i] = 0;
+                    continue;
+                }
+                double limit = 3 * Math.min(Math.abs(left), Math.abs(right));
+                double slope = (left + right) / 2;
+                slopes[i] = Math.abs(slope) > limit ? Math.copySign(limit, slope) : slope;
+            }
+        }
+    },
+    // Сплайн Акимы: производная - взвешенное среднее наклонов соседних отрезков с весами по
+    // изменению наклонов дальше от точки, поэтому одиночный выброс не раскачивает соседние отрезки.
+    // Недостающие наклоны за концами таблицы продолжаются линейно. Зависит от двух точек с каждой стороны
+    AKIMA {
+        @Override
+        int reach() {
+            return 2;
+        }
+        @Override
+        void slopes(double[] x, double[] y, int count, double[] slopes, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (count == 2) {
+                    slopes[i] = (y[1] - y[0]) / (x[1] - x[0]);
+                    continue;
+                }
+                double m1 = segmentSlope(x, y, count, i - 2);
+                double m2 = segmentSlope(x, y, count, i - 1);
+                double m3 = segmentSlope(x, y, count, i);
+                double m4 = segmentSlope(x, y, count, i + 1);
+                double w1 = Math.abs(m4 - m3);
+                double w2 = Math.abs(m2 - m1);
+                slopes[i] = w1 + w2 > 0 ? (w1 * m2 + w2 * m3) / (w1 + w2) : (m2 + m3) / 2;
+            }
+        }
+        // Наклон отрезка k (от точки k до k + 1); за концами - линейное продолжение наклонов
+        private double segmentSlope(double[] x, double[] y, int count, int k) {
+            if (k < 0) {
+                return 2 * segmentSlope(x, y, count, k + 1) - segmentSlope(x, y, count, k + 2);
+            }
+            if (k > count - 2) {
+                return 2 * segmentSlope(x, y, count, k - 1) - segmentSlope(x, y, count, k - 2);
+            }
+            return (y[k + 1] - y[k]) / (x[k + 1] - x[k]);
+        }
+    };
+
+    // Сколько соседних точек с каждой стороны влияет на производную в точке; -1 - вся таблица
+    abstract int reach();
+    // Производные в точках от from до to - 1; для способов с reach() = -1 - во всех точках.
+    // Таблица содержит не менее двух точек
+    abstract void slopes(double[] x, double[] y, int count, double[] slopes, int from, int to);
+}
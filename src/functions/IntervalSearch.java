@@ -0,0 +1,128 @@
+package functions;
+
+// Способы поиска отрезка интерполяции в упорядоченном по возрастанию массиве абсцисс.
+// Все способы возвращают наименьший индекс i, для которого x[i] <= x <= x[i + 1],
+// поэтому результат интерполяции не зависит от выбранного способа.
+public enum IntervalSearch {
+    // Последовательный просмотр отрезков слева направо, O(n)
+    LINEAR {
+        @Override
+        int findSegment(double[] xValues, int count, double x) {
+            int i = 0;
+            while (i < count - 2 && xValues[i + 1] < x) {
+                i++;
+            }
+            return i;
+        }
+    },
+    // Двоичный поиск, O(log n)
+    BINARY {
+        @Override
+        int findSegment(double[] xValues, int count, double x) {
+            // Ищем первую точку с X не меньше x
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (xValues[middle] < x) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            return Math.max(low - 1, 0);
+        }
+    },
+    // Интерполяционный поиск, O(log log n) для почти равномерной сетки.
+    // Если шаг угадывания не уменьшил интервал хотя бы вдвое, следующий шаг делается
+    // делением пополам, так что на неравномерной сетке поиск остаётся O(log n)
+    INTERPOLATION {
+        @Override
+        int findSegment(double[] xValues, int count, double x) {
+            int low = 0;
+            int high = count - 1;
+            if (!(xValues[low] < x)) {
+                return 0;
+            }
+            // Инвариант: x[low] < x <= x[high]
+            boolean bisect = false;
+            while (high - low > 1) {
+                int width = high - low;
+                int probe;
+                if (bisect) {
+                    probe = (low + high) >>> 1;
+                }
+                else {
+                    double xLow = xValues[low];
+                    double xHigh = xValues[high];
+                    probe = low + (int) ((x - xLow) / (xHigh - xLow) * width);
+                    if (probe <= low) {
+                        probe = low + 1;
+                    }
+                    else if (probe >= high) {
+                        probe = high - 1;
+                    }
+                }
+                if (xValues[probe] < x) {
+                    low = probe;
+                }
+                else {
+                    high = probe;
+                }
+                bisect = !bisect && (high - low) * 2 > width;
+            }
+            return low;
+        }
+    };
+
+    // Возвращает индекс левого конца отрезка, содержащего x.
+    // Предполагается, что count >= 2 и x лежит в [x[0], x[count - 1]]
+    abstract int findSegment(double[] xValues, int count, double x);
+
+    // Отрезок на равномерной сетке: номер угадывается по (x - x[0]) / шаг и уточняется сравнениями
+    // с соседними узлами. Погрешность угадывания - доли шага, так что сравнений одно-два, а результат
+    // тот же, что у findSegment, в том числе для x, совпадающего с узлом
+    static int findUniformSegment(double[] xValues, int count, double x, double inverseStep) {
+        int i = Math.min((int) ((x - xValues[0]) * inverseStep), count - 2);
+        while (i > 0 && !(xValues[i] < x)) {
+            i--;
+        }
+        while (i < count - 2 && xValues[i + 1] < x) {
+            i++;
+        }
+        return i;
+    }
+
+    // Продолжение поиска вправо от отрезка start, найденного для меньшего x (проход слиянием).
+    // Шаг вперёд растёт вдвое, пока не перешагнёт x, затем отрезок уточняется двоичным поиском,
+    // поэтому для плотного упорядоченного пакета проход стоит O(1) на точку, а для редкого - O(log d),
+    // где d - число пропущенных отрезков
+    static int findSegmentFrom(double[] xValues, int count, double x, int start) {
+        if (start >= count - 2 || !(xValues[start + 1] < x)) {
+            return start;
+        }
+        // Инвариант: x[low] < x, и x <= x[high] либо high - последняя точка
+        int low = start + 1;
+        int step = 1;
+        int high = low + step;
+        while (high < count - 1 && xValues[high] < x) {
+            low = high;
+            step <<= 1;
+            high = low + step;
+        }
+        if (high > count - 1) {
+            high = count - 1;
+        }
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (xValues[middle] < x) {
+                low = middle;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
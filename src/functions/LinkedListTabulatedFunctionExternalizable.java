@@ -4,45 +4,17 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import functions.LinkedListTabulatedFunction.FunctionNode;
 
 public class LinkedListTabulatedFunctionExternalizable implements TabulatedFunction, Externalizable {
-    // Внутренний класс для узлов списка
-    private static class FunctionNode {
-        private FunctionPoint point;
-        private FunctionNode prev;
-        private FunctionNode next;
-
-        public FunctionNode(FunctionPoint point) {
-            this.point = point;
-        }
-        public FunctionNode(double x, double y) {
-            this.point = new FunctionPoint(x, y);
-        }
-        public FunctionPoint getPoint() {
-            return point;
-        }
-        public void setPoint(FunctionPoint point) {
-            this.point = point;
-        }
-        public FunctionNode getPrev() {
-            return prev;
-        }
-        public void setPrev(FunctionNode prev) {
-            this.prev = prev;
-        }
-        public FunctionNode getNext() {
-            return next;
-        }
-        public void setNext(FunctionNode next) {
-            this.next = next;
-        }
-    }
+    private static final long serialVersionUID = 955874700319872476L;
 
     // Поля основного класса
     private FunctionNode head; // Голова списка (не содержит данных)
     private int size; // Количество значащих элементов
     private FunctionNode lastAccessedNode; // Для оптимизации доступа
     private int lastAccessedIndex; // Индекс последнего доступного узла
+    private SkipIndex skipIndex; // Необязательный индекс для поиска по X (null, если выключен)
 
 
     // Инициализация пустого списка с головой
@@ -98,39 +70,59 @@ public class LinkedListTabulatedFunctionExternalizable implements TabulatedFunct
         if (index < 0 || index > size) {
             throw new FunctionPointIndexOutOfBoundsException("Индекс выходит за пределы: " + index);
         }
-        FunctionNode newNode = new FunctionNode(new FunctionPoint(0, 0));
-        if (size == 0) {
-            // Первый элемент
-            newNode.setNext(head);
-            newNode.setPrev(head);
-            head.setNext(newNode);
-            head.setPrev(newNode);
-        }
-        else if (index == size) {
-            // Вставка в конец
-            FunctionNode last = head.getPrev();
-            last.setNext(newNode);
-            newNode.setPrev(last);
-            newNode.setNext(head);
-            head.setPrev(newNode);
-        }
-        else {
-            // Вставка в середину
-            FunctionNode current = getNodeByIndex(index);
-            FunctionNode prevNode = current.getPrev();
-            prevNode.setNext(newNode);
-            newNode.setPrev(prevNode);
-            newNode.setNext(current);
-            current.setPrev(newNode);
-        }
+        // Вставка в конец или в середину: новый узел встаёт перед узлом с этим индексом
+        FunctionNode prevNode = index == size ? head.getPrev() : getNodeByIndex(index).getPrev();
+        return addNodeAfter(prevNode, new FunctionPoint(0, 0));
+    }
+    // Метод для вставки узла сразу после заданного (голова - вставка в начало), O(1)
+    private FunctionNode addNodeAfter(FunctionNode prevNode, FunctionPoint point) {
+        FunctionNode newNode = new FunctionNode(point);
+        FunctionNode nextNode = prevNode.getNext();
+        prevNode.setNext(newNode);
+        newNode.setPrev(prevNode);
+        newNode.setNext(nextNode);
+        nextNode.setPrev(newNode);
         size++;
         lastAccessedIndex = -1; // Сбрасываем кэш
         return newNode;
     }
+    // Метод для поиска узла, начиная с которого нужно искать точку с абсциссой x:
+    // последний узел с X < x, найденный по индексу, или голова списка
+    private FunctionNode getSearchStart(double x) {
+        if (skipIndex != null) {
+            FunctionNode node = skipIndex.findBefore(x);
+            if (node != null) {
+                return node;
+            }
+        }
+        return head;
+    }
     // Метод для добавления узла в конец списка
     private FunctionNode addNodeToTail() {
         return addNodeByIndex(size);
     }
+    // Присоединение count точек к концу пустого списка за один проход, без сброса кэша на каждой вставке
+    private void linkPoints(double[] xValues, double[] yValues, int count) {
+        FunctionNode last = head;
+        for (int i = 0; i < count; i++) {
+            FunctionNode node = new FunctionNode(xValues[i], yValues[i]);
+            node.setPrev(last);
+            last.setNext(node);
+            last = node;
+        }
+        last.setNext(head);
+        head.setPrev(last);
+        size = count;
+    }
+    // Координаты всех точек по порядку
+    private void copyPoints(double[] xValues, double[] yValues) {
+        FunctionNode current = head.getNext();
+        for (int i = 0; i < size; i++) {
+            xValues[i] = current.getPoint().getX();
+            yValues[i] = current.getPoint().getY();
+            current = current.getNext();
+        }
+    }
     // Метод для удаления узла по индексу
     private FunctionNode deleteNodeByIndex(int index) {
         if (index < 0 || index >= size) {
@@ -140,6 +132,9 @@ public class LinkedListTabulatedFunctionExternalizable implements TabulatedFunct
             throw new IllegalStateException("Невозможно удалить точку — требуется минимум 2 точки");
         }
         FunctionNode nodeToDelete = getNodeByIndex(index);
+        if (skipIndex != null) {
+            skipIndex.remove(nodeToDelete);
+        }
         FunctionNode prevNode = nodeToDelete.getPrev();
         FunctionNode nextNode = nodeToDelete.getNext();
         prevNode.setNext(nextNode);
@@ -219,27 +214,62 @@ public class LinkedListTabulatedFunctionExternalizable implements TabulatedFunct
         if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
             return Double.NaN;
         }
-
-        // Поиск интервала для интерполяции
-        for (int i = 0; i < size - 1; i++) {
-            FunctionNode current = getNodeByIndex(i);
-            FunctionNode next = current.getNext();
-
-            double x1 = current.getPoint().getX();
-            double x2 = next.getPoint().getX();
-            double y1 = current.getPoint().getY();
-            double y2 = next.getPoint().getY();
-
-            if (x >= x1 && x <= x2) {
-                if (x1 == x2) {
-                    return y1; // Вертикальный отрезок
-                }
-                // Линейная интерполяция
-                return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+        return interpolate(findSegmentNode(getSearchStart(x), x), x);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        // Границы читаются один раз на весь пакет
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        // Пока точки пакета идут по возрастанию, поиск отрезка продолжается от предыдущего узла,
+        // так что упорядоченный пакет обходит список один раз, за O(n + m).
+        // Для точки левее предыдущей поиск начинается заново
+        FunctionNode segment = head;
+        double previous = Double.NaN;
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            if (x < left || x > right) {
+                out[i] = Double.NaN;
+                continue;
             }
+            segment = findSegmentNode(x >= previous ? segment : getSearchStart(x), x);
+            previous = x;
+            out[i] = interpolate(segment, x);
         }
-
-        return Double.NaN;
+    }
+    // Поиск интервала для интерполяции за один проход по узлам, начиная с узла start:
+    // первый отрезок, правый конец которого не меньше x. Возвращает левый узел отрезка
+    private FunctionNode findSegmentNode(FunctionNode start, double x) {
+        FunctionNode current = start == head ? head.getNext() : start;
+        FunctionNode last = head.getPrev();
+        FunctionNode next = current.getNext();
+        while (next != last && next.getPoint().getX() < x) {
+            current = next;
+            next = next.getNext();
+        }
+        return current;
+    }
+    // Значение в точке x на отрезке, начинающемся в узле current
+    private static double interpolate(FunctionNode current, double x) {
+        FunctionNode next = current.getNext();
+        double x1 = current.getPoint().getX();
+        double x2 = next.getPoint().getX();
+        double y1 = current.getPoint().getY();
+        double y2 = next.getPoint().getY();
+        if (x1 == x2) {
+            return y1; // Вертикальный отрезок
+        }
+        // Линейная интерполяция
+        return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+    }
+    // Включение и выключение индекса, ускоряющего поиск по X и упорядоченную вставку до O(log n).
+    // Индекс не сохраняется при сериализации: восстановленная функция создаётся без него
+    public boolean isSkipIndexEnabled() {
+        return skipIndex != null;
+    }
+    public void setSkipIndexEnabled(boolean enabled) {
+        skipIndex = enabled ? new SkipIndex(head) : null;
     }
     @Override
     public int getPointsCount() {
@@ -255,29 +285,28 @@ public class LinkedListTabulatedFunctionExternalizable implements TabulatedFunct
         if (index < 0 || index >= size) {
             throw new FunctionPointIndexOutOfBoundsException("Индекс выходит за пределы: " + index);
         }
-        // Проверка порядка X
-        if (index > 0 && point.getX() <= getPoint(index - 1).getX()) {
+        FunctionNode node = getNodeByIndex(index);
+        // Проверка порядка X по соседним узлам
+        if (index > 0 && point.getX() <= node.getPrev().getPoint().getX()) {
             throw new InappropriateFunctionPointException("X должен строго возрастать");
         }
-        if (index < size - 1 && point.getX() >= getPoint(index + 1).getX()) {
+        if (index < size - 1 && point.getX() >= node.getNext().getPoint().getX()) {
             throw new InappropriateFunctionPointException("X должен строго возрастать");
         }
 
-        FunctionNode node = getNodeByIndex(index);
         node.setPoint(new FunctionPoint(point.getX(), point.getY()));
     }
     @Override
     public double getPointX(int index) {
-        return getPoint(index).getX();
+        return getNodeByIndex(index).getPoint().getX();
     }
     @Override
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
-        FunctionPoint point = getPoint(index);
-        setPoint(index, new FunctionPoint(x, point.getY()));
+        setPoint(index, new FunctionPoint(x, getNodeByIndex(index).getPoint().getY()));
     }
     @Override
     public double getPointY(int index) {
-        return getPoint(index).getY();
+        return getNodeByIndex(index).getPoint().getY();
     }
     @Override
     public void setPointY(int index, double y)  {
@@ -291,38 +320,49 @@ public class LinkedListTabulatedFunctionExternalizable implements TabulatedFunct
     }
     @Override
     public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
-        // Находим позицию для вставки
-        int insertIndex = size;
-        for (int i = 0; i < size; i++) {
-            double currentX = getPointX(i);
-            if (currentX == point.getX()) {
-                throw new InappropriateFunctionPointException("Точка с X=" + point.getX() + " уже существует");
-            }
-            if (currentX > point.getX()) {
-                insertIndex = i;
-                break;
-            }
+        // Находим узел, после которого нужно вставить точку, за один проход по узлам
+        FunctionNode prevNode = getSearchStart(point.getX());
+        FunctionNode next = prevNode.getNext();
+        while (next != head && next.getPoint().getX() < point.getX()) {
+            prevNode = next;
+            next = next.getNext();
+        }
+        if (next != head && next.getPoint().getX() == point.getX()) {
+            throw new InappropriateFunctionPointException("Точка с X=" + point.getX() + " уже существует");
+        }
+        FunctionNode newNode = addNodeAfter(prevNode, new FunctionPoint(point));
+        if (skipIndex != null) {
+            skipIndex.insert(newNode);
         }
-        FunctionNode newNode = addNodeByIndex(insertIndex);
-        newNode.setPoint(point);
     }
 
     // Реализация Externalizable
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        // Записываем все точки упакованными блоками, см. PointBlocks
+        double[] xValues = new double[size];
+        double[] yValues = new double[size];
+        copyPoints(xValues, yValues);
+        out.writeInt(PointBlocks.MARKER);
         out.writeInt(size);
-
-        // Записываем все точки
-        FunctionNode current = head.getNext();
-        for (int i = 0; i < size; i++) {
-            out.writeDouble(current.getPoint().getX());
-            out.writeDouble(current.getPoint().getY());
-            current = current.getNext();
-        }
+        PointBlocks.write(out, xValues, yValues, size);
     }
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        int savedSize = in.readInt();
+        // Индекс ссылался бы на узлы прежнего списка; при необходимости его включают заново
+        skipIndex = null;
+        int first = in.readInt();
+        if (first == PointBlocks.MARKER) {
+            int savedSize = PointBlocks.checkCount(in.readInt());
+            double[] xValues = new double[savedSize];
+            double[] yValues = new double[savedSize];
+            PointBlocks.read(in, xValues, yValues, savedSize);
+            initializeList();
+            linkPoints(xValues, yValues, savedSize);
+            return;
+        }
+        // Прежняя форма: количество точек и пары writeDouble
+        int savedSize = first;
         initializeList();
 
         // Восстанавливаем точки
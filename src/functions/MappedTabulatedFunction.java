@@ -0,0 +1,189 @@
+package functions;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Табулированная функция только для чтения, отображённая в память из файла в формате
+// outputTabulatedFunction: int количество точек, затем пары double x, y (big-endian).
+// Файл не читается целиком: значения берутся прямо из отображения, поэтому таблица любого
+// размера открывается сразу, а страницы подгружаются операционной системой по мере обращения.
+// Порядок точек при открытии не проверяется, файл должен быть записан outputTabulatedFunction
+public class MappedTabulatedFunction implements TabulatedFunction {
+    private static final long serialVersionUID = -2858441744354746272L;
+
+    private static final int HEADER_SIZE = 4; // int количество точек
+    private static final int RECORD_SIZE = 16; // double x, double y
+    // Одно отображение ограничено 2 ГБ, поэтому файл отображается частями по 2^26 записей (1 ГБ)
+    private static final int CHUNK_SHIFT = 26;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final transient ByteBuffer[] chunks;
+    private final transient int pointsCount;
+
+    public MappedTabulatedFunction(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Файл слишком мал для табулированной функции: " + size + " байт");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Заголовок дочитывается до конца
+            }
+            int count = header.getInt(0);
+            if (count == CompactFormat.MAGIC) {
+                throw new IOException("Файл записан в компактном формате, отображаются только файлы outputTabulatedFunction");
+            }
+            if (count < 2) {
+                throw new IOException("Некорректное количество точек: " + count);
+            }
+            long expected = HEADER_SIZE + (long) count * RECORD_SIZE;
+            if (size < expected) {
+                throw new IOException("Файл обрезан: ожидалось " + expected + " байт, получено " + size);
+            }
+
+            // Отображение остаётся действительным и после закрытия канала
+            int chunkCount = ((count - 1) >>> CHUNK_SHIFT) + 1;
+            chunks = new ByteBuffer[chunkCount];
+            for (int k = 0; k < chunkCount; k++) {
+                long first = (long) k << CHUNK_SHIFT;
+                long records = Math.min(count - first, 1L << CHUNK_SHIFT);
+                chunks[k] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+            }
+            pointsCount = count;
+        }
+    }
+
+    private double x(int index) {
+        return chunks[index >>> CHUNK_SHIFT].getDouble((index & CHUNK_MASK) * RECORD_SIZE);
+    }
+    private double y(int index) {
+        return chunks[index >>> CHUNK_SHIFT].getDouble((index & CHUNK_MASK) * RECORD_SIZE + 8);
+    }
+
+    // Реализация методов
+    @Override
+    public double getLeftDomainBorder() {
+        return x(0);
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return x(pointsCount - 1);
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder())
+            return Double.NaN;
+        return interpolate(findSegment(x, 0), x);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        // Пока точки пакета идут по возрастанию, поиск продолжается от предыдущего отрезка
+        int i = 0;
+        double previous = Double.NaN;
+        int to = from + len;
+        for (int j = from; j < to; j++) {
+            double x = xs[j];
+            if (x < left || x > right) {
+                out[j] = Double.NaN;
+                continue;
+            }
+            i = findSegment(x, x >= previous ? i : 0);
+            previous = x;
+            out[j] = interpolate(i, x);
+        }
+    }
+    // Наименьший i >= start, для которого x[i] <= x <= x[i + 1]: галоп от start, затем двоичный поиск.
+    // Предполагается, что x лежит в области определения и x[start] <= x
+    private int findSegment(double x, int start) {
+        int low = start;
+        int high = pointsCount - 1;
+        for (int step = 1; low + step < high; step <<= 1) {
+            if (x(low + step) >= x) {
+                high = low + step;
+                break;
+            }
+            low += step;
+        }
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (x(middle) < x) {
+                low = middle;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    private double interpolate(int i, double x) {
+        double x1 = x(i);
+        double x2 = x(i + 1);
+        double y1 = y(i);
+        double y2 = y(i + 1);
+        return y1 + ((y2 - y1) * (x - x1)) / (x2 - x1);
+    }
+    @Override
+    public int getPointsCount() {
+        return pointsCount;
+    }
+    @Override
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), y(index));
+    }
+    @Override
+    public double getPointX(int index) {
+        checkIndex(index);
+        return x(index);
+    }
+    @Override
+    public double getPointY(int index) {
+        checkIndex(index);
+        return y(index);
+    }
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + pointsCount);
+        }
+    }
+
+    // Изменение отображённой таблицы не поддерживается
+    @Override
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Табулированная функция доступна только для чтения");
+    }
+    @Override
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Табулированная функция доступна только для чтения");
+    }
+    @Override
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Табулированная функция доступна только для чтения");
+    }
+    @Override
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Табулированная функция доступна только для чтения");
+    }
+    @Override
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Табулированная функция доступна только для чтения");
+    }
+
+    // Отображение не сериализуется: вместо него в поток пишется копия в виде ArrayTabulatedFunction
+    private Object writeReplace() throws ObjectStreamException {
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = x(i);
+            yValues[i] = y(i);
+        }
+        return new ArrayTabulatedFunction(xValues, yValues, pointsCount);
+    }
+}
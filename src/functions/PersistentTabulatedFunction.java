@@ -0,0 +1,608 @@
+package functions;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+// Неизменяемая табулированная функция с общими данными у версий.
+// Методы with... не меняют функцию, а возвращают новую версию. Точки хранятся в B+-дереве:
+// листья - отрезки массива до LEAF_CAPACITY точек, внутренние узлы - до BRANCH_CAPACITY детей.
+// Изменение копирует только путь от корня до листа, остальные узлы новая версия делит
+// со старой, поэтому версия стоит O(log n) памяти, а не копию всех точек.
+// Поиск по индексу и по X идёт от корня и тоже занимает O(log n).
+// Методы изменения TabulatedFunction не поддерживаются
+public class PersistentTabulatedFunction implements TabulatedFunction {
+    private static final long serialVersionUID = 3318406672810455097L;
+    private static final int LEAF_CAPACITY = 32;
+    private static final int BRANCH_CAPACITY = 32;
+
+    // Дерево восстанавливается из точек при чтении, см. readObject
+    private transient Node root;
+
+    // Конструкторы
+    public PersistentTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this(leftX, rightX, new double[checkPointsCount(pointsCount)]);
+    }
+    public PersistentTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница должна быть меньше правой границы: " + leftX + " >= " + rightX);
+        }
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Количество баллов должно быть не менее 2: " + values.length);
+        }
+
+        int pointsCount = values.length;
+        double[] xValues = new double[pointsCount];
+        double step = (rightX - leftX) / (pointsCount - 1);
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = leftX + i * step;
+        }
+        this.root = build(xValues, values, pointsCount);
+    }
+    public PersistentTabulatedFunction(FunctionPoint[] points) {
+        if (points.length < 2) {
+            throw new IllegalArgumentException("Требуется как минимум 2 точки");
+        }
+        for (int i = 1; i < points.length; i++) {
+            if (points[i].getX() <= points[i - 1].getX()) {
+                throw new IllegalArgumentException("Точки должны быть упорядочены по возрастанию X");
+            }
+        }
+
+        int pointsCount = points.length;
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = points[i].getX();
+            yValues[i] = points[i].getY();
+        }
+        this.root = build(xValues, yValues, pointsCount);
+    }
+    // Первая версия как снимок любой табулированной функции
+    public PersistentTabulatedFunction(TabulatedFunction function) {
+        int pointsCount = function.getPointsCount();
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xValues[i] = function.getPointX(i);
+            yValues[i] = function.getPointY(i);
+        }
+        this.root = build(xValues, yValues, pointsCount);
+    }
+    private PersistentTabulatedFunction(Node root) {
+        this.root = root;
+    }
+
+    // Реализация методов
+    @Override
+    public double getLeftDomainBorder() {
+        return root.firstX();
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return root.x(root.size() - 1);
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder())
+            return Double.NaN;
+        Cursor cursor = new Cursor(root);
+        cursor.seek(x);
+        return cursor.interpolate(x);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        // Пока точки пакета идут по возрастанию, отрезок ищется от предыдущего внутри листа,
+        // и спуск от корня нужен только при переходе к другому листу
+        Cursor cursor = new Cursor(root);
+        double previous = Double.NaN;
+        int to = from + len;
+        for (int j = from; j < to; j++) {
+            double x = xs[j];
+            if (x < left || x > right) {
+                out[j] = Double.NaN;
+                continue;
+            }
+            if (x >= previous) {
+                cursor.advance(x);
+            }
+            else {
+                cursor.seek(x);
+            }
+            previous = x;
+            out[j] = cursor.interpolate(x);
+        }
+    }
+    @Override
+    public int getPointsCount() {
+        return root.size();
+    }
+    @Override
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(root.x(index), root.y(index));
+    }
+    @Override
+    public double getPointX(int index) {
+        checkIndex(index);
+        return root.x(index);
+    }
+    @Override
+    public double getPointY(int index) {
+        checkIndex(index);
+        return root.y(index);
+    }
+
+    // Новые версии. Проверки и исключения те же, что у методов изменения ArrayTabulatedFunction
+    public PersistentTabulatedFunction withPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        checkOrder(index, point.getX());
+        return new PersistentTabulatedFunction(set(root, index, point.getX(), point.getY()));
+    }
+    public PersistentTabulatedFunction withPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        checkOrder(index, x);
+        return new PersistentTabulatedFunction(set(root, index, x, root.y(index)));
+    }
+    public PersistentTabulatedFunction withPointY(int index, double y) {
+        checkIndex(index);
+        return new PersistentTabulatedFunction(set(root, index, root.x(index), y));
+    }
+    public PersistentTabulatedFunction withoutPoint(int index) {
+        checkIndex(index);
+        int pointsCount = root.size();
+        if (pointsCount < 3) {
+            throw new IllegalStateException("Невозможно удалить точку: требуется минимум 2 точки, текущая: " + pointsCount);
+        }
+        Node node = delete(root, index);
+        // Корень с единственным ребёнком заменяется этим ребёнком
+        while (node instanceof Branch && ((Branch) node).children.length == 1) {
+            node = ((Branch) node).children[0];
+        }
+        return new PersistentTabulatedFunction(node);
+    }
+    public PersistentTabulatedFunction withAddedPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double x = point.getX();
+        int insertIndex = root.countLess(x);
+        if (insertIndex < root.size() && Math.abs(root.x(insertIndex) - x) < Double.MIN_VALUE) {
+            throw new InappropriateFunctionPointException("Точка с х= " + x + " уже существует по индексу " + insertIndex);
+        }
+        Node[] nodes = insert(root, insertIndex, x, point.getY());
+        return new PersistentTabulatedFunction(nodes.length == 1 ? nodes[0] : new Branch(nodes));
+    }
+
+    // Версии не изменяются на месте
+    @Override
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Табулированная функция неизменяема, используйте withPoint");
+    }
+    @Override
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Табулированная функция неизменяема, используйте withPointX");
+    }
+    @Override
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Табулированная функция неизменяема, используйте withPointY");
+    }
+    @Override
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Табулированная функция неизменяема, используйте withoutPoint");
+    }
+    @Override
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Табулированная функция неизменяема, используйте withAddedPoint");
+    }
+
+    // Вспомогательные методы
+    private static int checkPointsCount(int pointsCount) {
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество баллов должно быть не менее 2: " + pointsCount);
+        }
+        return pointsCount;
+    }
+    private void checkIndex(int index) {
+        if (index < 0 || index >= root.size()) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index + ", Количество: " + root.size());
+        }
+    }
+    private void checkOrder(int index, double x) throws InappropriateFunctionPointException {
+        if (index > 0 && x <= root.x(index - 1)) {
+            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть больше предыдущей точки x= " + root.x(index - 1));
+        }
+        if (index < root.size() - 1 && x >= root.x(index + 1)) {
+            throw new InappropriateFunctionPointException("Точка x= " + x + " должно быть меньше следующей точки x= " + root.x(index + 1));
+        }
+    }
+
+    // Узлы дерева не изменяются после создания, массивы внутри них тоже
+    private abstract static class Node {
+        abstract int size();   // Количество точек в поддереве
+        abstract int width();  // Количество точек листа или детей внутреннего узла
+        abstract double firstX();
+        abstract double x(int index);
+        abstract double y(int index);
+        // Количество точек с X < x
+        abstract int countLess(double x);
+        abstract void copyTo(double[] xValues, double[] yValues, int offset);
+    }
+    private static final class Leaf extends Node {
+        final double[] xs;
+        final double[] ys;
+
+        Leaf(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        @Override
+        int size() {
+            return xs.length;
+        }
+        @Override
+        int width() {
+            return xs.length;
+        }
+        @Override
+        double firstX() {
+            return xs[0];
+        }
+        @Override
+        double x(int index) {
+            return xs[index];
+        }
+        @Override
+        double y(int index) {
+            return ys[index];
+        }
+        @Override
+        int countLess(double x) {
+            int low = 0;
+            int high = xs.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (xs[middle] < x) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+        @Override
+        void copyTo(double[] xValues, double[] yValues, int offset) {
+            System.arraycopy(xs, 0, xValues, offset, xs.length);
+            System.arraycopy(ys, 0, yValues, offset, ys.length);
+        }
+    }
+    private static final class Branch extends Node {
+        final Node[] children;
+        final int[] ends;        // ends[j] - количество точек в детях от 0 до j включительно
+        final double[] firstXs;  // Первая абсцисса каждого ребёнка
+
+        Branch(Node[] children) {
+            this.children = children;
+            this.ends = new int[children.length];
+            this.firstXs = new double[children.length];
+            int total = 0;
+            for (int j = 0; j < children.length; j++) {
+                total += children[j].size();
+                ends[j] = total;
+                firstXs[j] = children[j].firstX();
+            }
+        }
+
+        @Override
+        int size() {
+            return ends[ends.length - 1];
+        }
+        @Override
+        int width() {
+            return children.length;
+        }
+        @Override
+        double firstX() {
+            return firstXs[0];
+        }
+        int start(int j) {
+            return j == 0 ? 0 : ends[j - 1];
+        }
+        // Ребёнок, содержащий точку с индексом index
+        int childByIndex(int index) {
+            int low = 0;
+            int high = ends.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ends[middle] > index) {
+                    high = middle;
+                }
+                else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+        // Последний ребёнок, который начинается левее x (или первый); в предыдущих все точки меньше x
+        int childBefore(double x) {
+            int low = 0;
+            int high = firstXs.length - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (firstXs[middle] < x) {
+                    low = middle;
+                }
+                else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+        @Override
+        double x(int index) {
+            int j = childByIndex(index);
+            return children[j].x(index - start(j));
+        }
+        @Override
+        double y(int index) {
+            int j = childByIndex(index);
+            return children[j].y(index - start(j));
+        }
+        @Override
+        int countLess(double x) {
+            int j = childBefore(x);
+            return start(j) + children[j].countLess(x);
+        }
+        @Override
+        void copyTo(double[] xValues, double[] yValues, int offset) {
+            for (int j = 0; j < children.length; j++) {
+                children[j].copyTo(xValues, yValues, offset + start(j));
+            }
+        }
+    }
+
+    // Отрезок интерполяции тот же, что у ArrayTabulatedFunction: начинается с последней точки,
+    // у которой X < x (для левой границы - с первой). Курсор помнит лист с началом отрезка
+    private static final class Cursor {
+        private final Node root;
+        private Leaf leaf;
+        private int offset; // Индекс первой точки листа
+        private int k;      // Начало отрезка в листе
+        private double x1;
+        private double y1;
+        private double x2;
+        private double y2;
+
+        Cursor(Node root) {
+            this.root = root;
+        }
+
+        // Поиск от корня; x лежит в области определения
+        void seek(double x) {
+            Node node = root;
+            offset = 0;
+            while (node instanceof Branch) {
+                Branch branch = (Branch) node;
+                int j = branch.childBefore(x);
+                offset += branch.start(j);
+                node = branch.children[j];
+            }
+            leaf = (Leaf) node;
+            k = Math.max(leaf.countLess(x) - 1, 0);
+            load();
+        }
+        // Поиск вперёд от текущего отрезка; x не меньше предыдущего x
+        void advance(double x) {
+            if (x <= x2) {
+                return;
+            }
+            int last = leaf.xs.length - 1;
+            while (k < last && leaf.xs[k + 1] < x) {
+                k++;
+            }
+            if (k < last || x <= root.x(offset + k + 1)) {
+                load();
+            }
+            else {
+                seek(x);
+            }
+        }
+        double interpolate(double x) {
+            return y1 + ((y2 - y1) * (x - x1)) / (x2 - x1);
+        }
+        // Правый конец отрезка - следующая точка в том же листе или первая точка следующего
+        private void load() {
+            x1 = leaf.xs[k];
+            y1 = leaf.ys[k];
+            if (k + 1 < leaf.xs.length) {
+                x2 = leaf.xs[k + 1];
+                y2 = leaf.ys[k + 1];
+            }
+            else {
+                x2 = root.x(offset + k + 1);
+                y2 = root.y(offset + k + 1);
+            }
+        }
+    }
+
+    // Построение дерева из упорядоченных точек: листья и узлы каждого уровня делятся поровну,
+    // поэтому все они, кроме корня, заполнены не меньше чем наполовину
+    private static Node build(double[] xValues, double[] yValues, int pointsCount) {
+        int leafCount = (pointsCount + LEAF_CAPACITY - 1) / LEAF_CAPACITY;
+        Node[] level = new Node[leafCount];
+        for (int j = 0; j < leafCount; j++) {
+            int from = (int) ((long) pointsCount * j / leafCount);
+            int to = (int) ((long) pointsCount * (j + 1) / leafCount);
+            double[] xs = new double[to - from];
+            double[] ys = new double[to - from];
+            System.arraycopy(xValues, from, xs, 0, to - from);
+            System.arraycopy(yValues, from, ys, 0, to - from);
+            level[j] = new Leaf(xs, ys);
+        }
+        while (level.length > 1) {
+            int branchCount = (level.length + BRANCH_CAPACITY - 1) / BRANCH_CAPACITY;
+            Node[] parents = new Node[branchCount];
+            for (int j = 0; j < branchCount; j++) {
+                int from = (int) ((long) level.length * j / branchCount);
+                int to = (int) ((long) level.length * (j + 1) / branchCount);
+                Node[] children = new Node[to - from];
+                System.arraycopy(level, from, children, 0, to - from);
+                parents[j] = new Branch(children);
+            }
+            level = parents;
+        }
+        return level[0];
+    }
+
+    // Копия пути до точки index с новыми координатами; порядок точек уже проверен
+    private static Node set(Node node, int index, double x, double y) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            double[] xs = leaf.xs.clone();
+            double[] ys = leaf.ys.clone();
+            xs[index] = x;
+            ys[index] = y;
+            return new Leaf(xs, ys);
+        }
+        Branch branch = (Branch) node;
+        int j = branch.childByIndex(index);
+        Node[] children = branch.children.clone();
+        children[j] = set(children[j], index - branch.start(j), x, y);
+        return new Branch(children);
+    }
+    // Вставка точки на место index; переполненный узел делится пополам,
+    // тогда возвращаются две половины, иначе один узел
+    private static Node[] insert(Node node, int index, double x, double y) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int width = leaf.xs.length;
+            double[] xs = new double[width + 1];
+            double[] ys = new double[width + 1];
+            System.arraycopy(leaf.xs, 0, xs, 0, index);
+            System.arraycopy(leaf.ys, 0, ys, 0, index);
+            xs[index] = x;
+            ys[index] = y;
+            System.arraycopy(leaf.xs, index, xs, index + 1, width - index);
+            System.arraycopy(leaf.ys, index, ys, index + 1, width - index);
+            if (width + 1 <= LEAF_CAPACITY) {
+                return new Node[]{new Leaf(xs, ys)};
+            }
+            return splitLeaf(xs, ys);
+        }
+        Branch branch = (Branch) node;
+        // Точка на границе двух детей добавляется в конец левого
+        int j = index == 0 ? 0 : branch.childByIndex(index - 1);
+        Node[] parts = insert(branch.children[j], index - branch.start(j), x, y);
+        int width = branch.children.length;
+        Node[] children = new Node[width + parts.length - 1];
+        System.arraycopy(branch.children, 0, children, 0, j);
+        System.arraycopy(parts, 0, children, j, parts.length);
+        System.arraycopy(branch.children, j + 1, children, j + parts.length, width - j - 1);
+        if (children.length <= BRANCH_CAPACITY) {
+            return new Node[]{new Branch(children)};
+        }
+        return splitBranch(children);
+    }
+    // Удаление точки index. Ребёнок, оставшийся заполненным меньше чем наполовину, сливается
+    // с соседом, а слишком большой результат слияния снова делится пополам.
+    // Сам возвращаемый узел может оказаться неполным - это исправляет родитель
+    private static Node delete(Node node, int index) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int width = leaf.xs.length;
+            double[] xs = new double[width - 1];
+            double[] ys = new double[width - 1];
+            System.arraycopy(leaf.xs, 0, xs, 0, index);
+            System.arraycopy(leaf.ys, 0, ys, 0, index);
+            System.arraycopy(leaf.xs, index + 1, xs, index, width - index - 1);
+            System.arraycopy(leaf.ys, index + 1, ys, index, width - index - 1);
+            return new Leaf(xs, ys);
+        }
+        Branch branch = (Branch) node;
+        int j = branch.childByIndex(index);
+        Node child = delete(branch.children[j], index - branch.start(j));
+        Node[] children = branch.children.clone();
+        children[j] = child;
+        int capacity = child instanceof Leaf ? LEAF_CAPACITY : BRANCH_CAPACITY;
+        if (child.width() >= capacity / 2 || children.length == 1) {
+            return new Branch(children);
+        }
+
+        int left = j > 0 ? j - 1 : j;
+        Node[] merged = merge(children[left], children[left + 1]);
+        Node[] result = new Node[children.length - 2 + merged.length];
+        System.arraycopy(children, 0, result, 0, left);
+        System.arraycopy(merged, 0, result, left, merged.length);
+        System.arraycopy(children, left + 2, result, left + merged.length, children.length - left - 2);
+        return new Branch(result);
+    }
+    // Два соседних узла одного уровня: один узел или две равные половины
+    private static Node[] merge(Node left, Node right) {
+        if (left instanceof Leaf) {
+            Leaf a = (Leaf) left;
+            Leaf b = (Leaf) right;
+            double[] xs = new double[a.xs.length + b.xs.length];
+            double[] ys = new double[xs.length];
+            System.arraycopy(a.xs, 0, xs, 0, a.xs.length);
+            System.arraycopy(a.ys, 0, ys, 0, a.ys.length);
+            System.arraycopy(b.xs, 0, xs, a.xs.length, b.xs.length);
+            System.arraycopy(b.ys, 0, ys, a.ys.length, b.ys.length);
+            return xs.length <= LEAF_CAPACITY ? new Node[]{new Leaf(xs, ys)} : splitLeaf(xs, ys);
+        }
+        Node[] a = ((Branch) left).children;
+        Node[] b = ((Branch) right).children;
+        Node[] children = new Node[a.length + b.length];
+        System.arraycopy(a, 0, children, 0, a.length);
+        System.arraycopy(b, 0, children, a.length, b.length);
+        return children.length <= BRANCH_CAPACITY ? new Node[]{new Branch(children)} : splitBranch(children);
+    }
+    private static Node[] splitLeaf(double[] xs, double[] ys) {
+        int half = xs.length >>> 1;
+        double[] leftXs = new double[half];
+        double[] leftYs = new double[half];
+        double[] rightXs = new double[xs.length - half];
+        double[] rightYs = new double[xs.length - half];
+        System.arraycopy(xs, 0, leftXs, 0, half);
+        System.arraycopy(ys, 0, leftYs, 0, half);
+        System.arraycopy(xs, half, rightXs, 0, xs.length - half);
+        System.arraycopy(ys, half, rightYs, 0, xs.length - half);
+        return new Node[]{new Leaf(leftXs, leftYs), new Leaf(rightXs, rightYs)};
+    }
+    private static Node[] splitBranch(Node[] children) {
+        int half = children.length >>> 1;
+        Node[] left = new Node[half];
+        Node[] right = new Node[children.length - half];
+        System.arraycopy(children, 0, left, 0, half);
+        System.arraycopy(children, half, right, 0, children.length - half);
+        return new Node[]{new Branch(left), new Branch(right)};
+    }
+
+    // Сериализация: точки версии упакованными блоками (см. PointBlocks), без структуры дерева
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        int pointsCount = root.size();
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        root.copyTo(xValues, yValues, 0);
+        out.writeInt(pointsCount);
+        PointBlocks.write(out, xValues, yValues, pointsCount);
+    }
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int pointsCount = PointBlocks.checkCount(in.readInt());
+        if (pointsCount < 2) {
+            throw new InvalidObjectException("Требуется как минимум 2 точки");
+        }
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        PointBlocks.read(in, xValues, yValues, pointsCount);
+        for (int i = 1; i < pointsCount; i++) {
+            if (!(xValues[i] > xValues[i - 1])) {
+                throw new InvalidObjectException("Точки должны быть упорядочены по возрастанию X");
+            }
+        }
+        root = build(xValues, yValues, pointsCount);
+    }
+}
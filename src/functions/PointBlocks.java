@@ -0,0 +1,55 @@
+package functions;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+// Точки табулированной функции в сериализованной форме: пары double x, y (big-endian),
+// упакованные в блоки байтов по BLOCK_POINTS точек. Каждый блок передаётся одним вызовом write,
+// а не двумя writeDouble на точку, и читается одним readFully.
+// Прежние формы записывали в начале количество точек (неотрицательное), поэтому новые
+// начинаются с отрицательного MARKER, и чтение различает их по первому int
+final class PointBlocks {
+    static final int MARKER = 0xB10CF001;
+    private static final int BLOCK_POINTS = 4096;
+
+    private PointBlocks() {
+        throw new AssertionError("Невозможно создать экземпляр класса PointBlocks");
+    }
+
+    static void write(ObjectOutput out, double[] xValues, double[] yValues, int count) throws IOException {
+        byte[] bytes = new byte[16 * Math.min(count, BLOCK_POINTS)];
+        DoubleBuffer doubles = ByteBuffer.wrap(bytes).asDoubleBuffer();
+        for (int from = 0; from < count; from += BLOCK_POINTS) {
+            int to = Math.min(from + BLOCK_POINTS, count);
+            doubles.clear();
+            for (int i = from; i < to; i++) {
+                doubles.put(xValues[i]);
+                doubles.put(yValues[i]);
+            }
+            out.write(bytes, 0, 16 * (to - from));
+        }
+    }
+    static void read(ObjectInput in, double[] xValues, double[] yValues, int count) throws IOException {
+        byte[] bytes = new byte[16 * Math.min(count, BLOCK_POINTS)];
+        DoubleBuffer doubles = ByteBuffer.wrap(bytes).asDoubleBuffer();
+        for (int from = 0; from < count; from += BLOCK_POINTS) {
+            int to = Math.min(from + BLOCK_POINTS, count);
+            in.readFully(bytes, 0, 16 * (to - from));
+            doubles.clear();
+            for (int i = from; i < to; i++) {
+                xValues[i] = doubles.get();
+                yValues[i] = doubles.get();
+            }
+        }
+    }
+    static int checkCount(int count) throws InvalidObjectException {
+        if (count < 0) {
+            throw new InvalidObjectException("Некорректное количество точек: " + count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,8 @@
+package functions;
+
+// Получатель точек табулированной функции при потоковом чтении: точки передаются по одной
+// в порядке следования, без создания объектов FunctionPoint
+@FunctionalInterface
+public interface PointConsumer {
+    void accept(double x, double y);
+}
@@ -0,0 +1,112 @@
+package functions;
+
+import functions.LinkedListTabulatedFunction.FunctionNode;
+
+// Индекс над узлами связного списка табулированной функции в виде списка с пропусками.
+// Сам список остаётся нижним уровнем, индекс хранит только "экспресс-уровни" над частью узлов,
+// поэтому вставка и удаление узла по-прежнему сводятся к перестановке ссылок.
+// Ключ узла не копируется, а читается из его точки, так что изменение X без нарушения
+// порядка точек индекс не портит.
+class SkipIndex {
+    private static final int MAX_LEVEL = 16;
+
+    // Башня узла: ссылки на следующие башни на каждом уровне
+    private static class Tower {
+        private final FunctionNode node;
+        private final Tower[] next;
+
+        Tower(FunctionNode node, int height) {
+            this.node = node;
+            this.next = new Tower[height];
+        }
+    }
+
+    private final Tower head = new Tower(null, MAX_LEVEL); // Голова индекса (не содержит узла)
+    private int level; // Количество используемых уровней
+    private int seed = 0x2545F491; // Состояние генератора высот башен
+
+    // Построение индекса по уже существующему списку за один проход
+    SkipIndex(FunctionNode listHead) {
+        Tower[] last = new Tower[MAX_LEVEL];
+        java.util.Arrays.fill(last, head);
+        for (FunctionNode node = listHead.getNext(); node != listHead; node = node.getNext()) {
+            int height = randomHeight();
+            if (height == 0) {
+                continue;
+            }
+            Tower tower = new Tower(node, height);
+            for (int l = 0; l < height; l++) {
+                last[l].next[l] = tower;
+                last[l] = tower;
+            }
+            level = Math.max(level, height);
+        }
+    }
+
+    private static double key(Tower tower) {
+        return tower.node.getPoint().getX();
+    }
+
+    // Возвращает последний проиндексированный узел с X < x или null, если такого нет.
+    // Дальше нужный узел находится коротким проходом по самому списку
+    FunctionNode findBefore(double x) {
+        Tower current = head;
+        for (int l = level - 1; l >= 0; l--) {
+            while (current.next[l] != null && key(current.next[l]) < x) {
+                current = current.next[l];
+            }
+        }
+        return current.node;
+    }
+    // Добавление в индекс узла, уже вставленного в список
+    void insert(FunctionNode node) {
+        int height = randomHeight();
+        if (height == 0) {
+            return;
+        }
+        level = Math.max(level, height);
+        double x = node.getPoint().getX();
+        Tower tower = new Tower(node, height);
+        Tower current = head;
+        for (int l = level - 1; l >= 0; l--) {
+            while (current.next[l] != null && key(current.next[l]) < x) {
+                current = current.next[l];
+            }
+            if (l < height) {
+                tower.next[l] = current.next[l];
+                current.next[l] = tower;
+            }
+        }
+    }
+    // Удаление узла из индекса, пока он ещё находится в списке
+    void remove(FunctionNode node) {
+        double x = node.getPoint().getX();
+        Tower current = head;
+        for (int l = level - 1; l >= 0; l--) {
+            while (current.next[l] != null && key(current.next[l]) < x) {
+                current = current.next[l];
+            }
+            if (current.next[l] != null && current.next[l].node == node) {
+                current.next[l] = current.next[l].next[l];
+            }
+        }
+        while (level > 0 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    // Высота башни: на каждый следующий уровень попадает примерно четверть узлов
+    private int randomHeight() {
+        // xorshift32
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        int bits = seed;
+        int height = 0;
+        while ((bits & 3) == 0 && height < MAX_LEVEL) {
+            height++;
+            bits >>>= 2;
+        }
+        return height;
+    }
+}
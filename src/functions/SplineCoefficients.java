@@ -0,0 +1,148 @@
+package functions;
+
+import java.util.Arrays;
+
+// Коэффициенты кубической интерполяции для табулированной функции на массивах.
+// На отрезке i значение равно y[i] + t (b[i] + t (c[i] + t d[i])), t = x - x[i], где b[i] - производная
+// в точке i. Изменение точки помечает устаревшими производные в точках, на которые оно влияет
+// (Interpolation.reach), а пересчёт откладывается до следующего вычисления значения.
+// Поэтому серия изменений подряд стоит одного пересчёта, и для локальных способов он
+// затрагивает только окрестность изменённых точек.
+// Пересчёт выполняется внутри вычисления значения, поэтому он защищён монитором объекта:
+// несколько потоков могут одновременно читать функцию (например, при параллельном табулировании
+// композиции с ней), и пересчёт выполняет ровно один из них, а остальные ждут и видят его результат.
+// Изменения точек, как и у самих табулированных функций, не должны идти одновременно с чтением
+final class SplineCoefficients {
+    private final Interpolation interpolation;
+    private double[] slopes = new double[0];
+    private double[] quadratic = new double[0];
+    private double[] cubic = new double[0];
+    // Устаревшие производные в точках от staleFrom до staleTo - 1 (пустой интервал, если всё актуально)
+    private int staleFrom = 0;
+    private int staleTo = Integer.MAX_VALUE;
+    // Все коэффициенты актуальны. Запись true после пересчёта публикует массивы читающим потокам
+    private volatile boolean current = false;
+
+    SplineCoefficients(Interpolation interpolation) {
+        this.interpolation = interpolation;
+    }
+
+    Interpolation getInterpolation() {
+        return interpolation;
+    }
+    // Изменились координаты точки index
+    void pointChanged(int index) {
+        int reach = interpolation.reach();
+        if (reach < 0) {
+            invalidate();
+        }
+        else {
+            markStale(index - reach, index + reach + 1);
+        }
+    }
+    // Вставлена точка index; count - количество точек после вставки
+    void pointInserted(int index, int count) {
+        int reach = interpolation.reach();
+        if (reach < 0 || staleTo == Integer.MAX_VALUE) {
+            invalidate();
+            return;
+        }
+        ensureCapacity(count);
+        int moved = count - 1 - index;
+        System.arraycopy(slopes, index, slopes, index + 1, moved);
+        System.arraycopy(quadratic, index, quadratic, index + 1, moved);
+        System.arraycopy(cubic, index, cubic, index + 1, moved);
+        if (staleFrom < staleTo) {
+            if (staleFrom > index) {
+                staleFrom++;
+            }
+            if (staleTo > index) {
+                staleTo++;
+            }
+        }
+        markStale(index - reach, index + reach + 1);
+    }
+    // Удалена точка index; count - количество точек после удаления
+    void pointDeleted(int index, int count) {
+        int reach = interpolation.reach();
+        if (reach < 0 || staleTo == Integer.MAX_VALUE) {
+            invalidate();
+            return;
+        }
+        int moved = count - index;
+        System.arraycopy(slopes, index + 1, slopes, index, moved);
+        System.arraycopy(quadratic, index + 1, quadratic, index, moved);
+        System.arraycopy(cubic, index + 1, cubic, index, moved);
+        if (staleFrom < staleTo) {
+            if (staleFrom > index) {
+                staleFrom--;
+            }
+            if (staleTo > index) {
+                staleTo--;
+            }
+        }
+        // Бывшие соседи удалённой точки стали соседями друг друга
+        markStale(index - reach - 1, index + reach + 1);
+    }
+    // Пересчитать всё при следующем вычислении
+    void invalidate() {
+        staleFrom = 0;
+        staleTo = Integer.MAX_VALUE;
+        current = false;
+    }
+
+    // Пересчёт устаревших коэффициентов; вызывается перед value
+    void update(double[] x, double[] y, int count) {
+        if (current) {
+            return;
+        }
+        synchronized (this) {
+            if (!current) {
+                recompute(x, y, count);
+                current = true;
+            }
+        }
+    }
+    private void recompute(double[] x, double[] y, int count) {
+        int from = Math.max(staleFrom, 0);
+        int to = Math.min(staleTo, count);
+        if (from >= to) {
+            return;
+        }
+        ensureCapacity(count);
+        if (interpolation.reach() < 0) {
+            from = 0;
+            to = count;
+        }
+        interpolation.slopes(x, y, count, slopes, from, to);
+        // Отрезок зависит от производных на обоих концах
+        int last = Math.min(to, count - 1);
+        for (int i = Math.max(from - 1, 0); i < last; i++) {
+            double h = x[i + 1] - x[i];
+            double secant = (y[i + 1] - y[i]) / h;
+            quadratic[i] = (3 * secant - 2 * slopes[i] - slopes[i + 1]) / h;
+            cubic[i] = (slopes[i] + slopes[i + 1] - 2 * secant) / (h * h);
+        }
+        staleFrom = Integer.MAX_VALUE;
+        staleTo = 0;
+    }
+    // Значение на отрезке i; коэффициенты должны быть актуальны
+    double value(double[] x, double[] y, int i, double point) {
+        double t = point - x[i];
+        return y[i] + t * (slopes[i] + t * (quadratic[i] + t * cubic[i]));
+    }
+
+    private void markStale(int from, int to) {
+        staleFrom = Math.min(staleFrom, Math.max(from, 0));
+        staleTo = Math.max(staleTo, to);
+        current = false;
+    }
+    private void ensureCapacity(int capacity) {
+        if (capacity > slopes.length) {
+            int length = Math.max(capacity, slopes.length + (slopes.length >> 1));
+            slopes = Arrays.copyOf(slopes, length);
+            quadratic = Arrays.copyOf(quadratic, length);
+            cubic = Arrays.copyOf(cubic, length);
+        }
+    }
+}
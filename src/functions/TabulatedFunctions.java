@@ -1,13 +1,137 @@
 package functions;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class TabulatedFunctions {
+    // Параметры параллельного табулирования по умолчанию
+    public static final int DEFAULT_GRAIN_SIZE = 8192;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 65536;
+    private static final int CHANNEL_BLOCK_SIZE = 64 * 1024; // Размер блока при обмене через каналы, кратен 16
+    // Число точек начальной равномерной сетки адаптивного табулирования
+    private static final int ADAPTIVE_INITIAL_POINTS = 17;
+
     private TabulatedFunctions() {
         throw new AssertionError("Невозможно создать экземпляр класса TabulatedFunctions");
     }
 
     public static TabulatedFunction tabulate(Function function, double leftX, double rightX, int pointsCount) {
+        checkTabulationBounds(function, leftX, rightX, pointsCount);
+
+        // Создание массива значений Y путем вычисления функции в равномерно распределенных точках.
+        // Точки упорядочены, поэтому пакетное вычисление табулированной функции проходит её за один раз
+        double[] values = new double[pointsCount];
+        fillValues(function, leftX, (rightX - leftX) / (pointsCount - 1), values, 0, pointsCount);
+        return new ArrayTabulatedFunction(leftX, rightX, values);
+    }
+    public static TabulatedFunction tabulate(Function function, double leftX, double rightX, int pointsCount, Executor executor) {
+        return tabulate(function, leftX, rightX, pointsCount, executor, DEFAULT_GRAIN_SIZE, DEFAULT_PARALLEL_THRESHOLD);
+    }
+    // Параллельное табулирование: диапазон индексов делится на части не больше grainSize точек,
+    // которые вычисляются в пуле ForkJoinPool (рекурсивным делением) или в любом другом исполнителе.
+    // Каждая точка вычисляется той же формулой, что и в последовательном варианте, поэтому результат
+    // совпадает с ним побитово. Если точек меньше parallelThreshold, табулирование идёт последовательно
+    public static TabulatedFunction tabulate(Function function, double leftX, double rightX, int pointsCount,
+                                             Executor executor, int grainSize, int parallelThreshold) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Исполнитель не может быть null");
+        }
+        if (grainSize < 1) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + grainSize);
+        }
+        if (pointsCount < parallelThreshold || pointsCount <= grainSize) {
+            return tabulate(function, leftX, rightX, pointsCount);
+        }
+        checkTabulationBounds(function, leftX, rightX, pointsCount);
+
+        double[] values = new double[pointsCount];
+        double step = (rightX - leftX) / (pointsCount - 1);
+        if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new TabulationTask(function, leftX, step, values, 0, pointsCount, grainSize));
+        }
+        else {
+            CompletableFuture<?>[] parts = new CompletableFuture<?>[(pointsCount + grainSize - 1) / grainSize];
+            for (int part = 0; part < parts.length; part++) {
+                int from = part * grainSize;
+                int to = Math.min(from + grainSize, pointsCount);
+                parts[part] = CompletableFuture.runAsync(() -> fillValues(function, leftX, step, values, from, to), executor);
+            }
+            try {
+                CompletableFuture.allOf(parts).join();
+            }
+            catch (CompletionException e) {
+                // Исключение функции пробрасывается вызывающему в исходном виде
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return new ArrayTabulatedFunction(leftX, rightX, values);
+    }
+
+    // Адаптивное табулирование: начиная с небольшой равномерной сетки, отрезок с наибольшей
+    // погрешностью линейной интерполяции делится пополам, пока погрешность всех отрезков не станет
+    // не больше maxError или число точек не достигнет maxPoints. Погрешность отрезка оценивается
+    // как отклонение значения функции в его середине от значения интерполяции.
+    // Отрезки, где функция не определена (NaN), не делятся
+    public static TabulatedFunction tabulateAdaptive(Function function, double leftX, double rightX, double maxError, int maxPoints) {
+        checkTabulationBounds(function, leftX, rightX, maxPoints);
+        if (!(maxError >= 0)) {
+            throw new IllegalArgumentException("Допустимая погрешность должна быть неотрицательной: " + maxError);
+        }
+
+        // Начальная равномерная сетка
+        int initialCount = Math.min(maxPoints, ADAPTIVE_INITIAL_POINTS);
+        double step = (rightX - leftX) / (initialCount - 1);
+        double[] initial = new double[initialCount];
+        fillValues(function, leftX, step, initial, 0, initialCount);
+        PriorityQueue<AdaptiveSegment> queue = new PriorityQueue<>();
+        for (int i = 0; i < initialCount - 1; i++) {
+            queue.add(new AdaptiveSegment(function, leftX + i * step, initial[i], leftX + (i + 1) * step, initial[i + 1]));
+        }
+
+        // Деление худшего отрезка, пока есть бюджет точек
+        int pointsCount = initialCount;
+        while (pointsCount < maxPoints && !queue.isEmpty()) {
+            AdaptiveSegment worst = queue.peek();
+            if (!(worst.error > maxError)) {
+                break;
+            }
+            queue.poll();
+            queue.add(new AdaptiveSegment(function, worst.x0, worst.y0, worst.xMiddle, worst.yMiddle));
+            queue.add(new AdaptiveSegment(function, worst.xMiddle, worst.yMiddle, worst.x1, worst.y1));
+            pointsCount++;
+        }
+        // Сборка точек из отрезков, упорядоченных по левому концу
+        List<AdaptiveSegment> segments = new ArrayList<>(queue);
+        segments.sort((a, b) -> Double.compare(a.x0, b.x0));
+        double[] xValues = new double[pointsCount];
+        double[] yValues = new double[pointsCount];
+        for (int i = 0; i < segments.size(); i++) {
+            xValues[i] = segments.get(i).x0;
+            yValues[i] = segments.get(i).y0;
+        }
+        AdaptiveSegment last = segments.get(segments.size() - 1);
+        xValues[pointsCount - 1] = last.x1;
+        yValues[pointsCount - 1] = last.y1;
+        return new ArrayTabulatedFunction(xValues, yValues, pointsCount);
+    }
+
+    // Проверка параметров табулирования
+    private static void checkTabulationBounds(Function function, double leftX, double rightX, int pointsCount) {
         // Проверка корректности параметров
         if (pointsCount < 2) {
             throw new IllegalArgumentException("Количество точек должно быть не менее 2: " + pointsCount);
@@ -24,16 +148,81 @@ public class TabulatedFunctions {
                             "выходят за область определения функции [" + functionLeftBorder + ", " + functionRightBorder + "]"
             );
         }
+    }
+    // Вычисление значений функции в точках leftX + i * step для i от from до to - 1
+    private static void fillValues(Function function, double leftX, double step, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = leftX + i * step;
+        }
+        function.getFunctionValues(values, values, from, to - from);
+    }
+    // Отрезок адаптивного табулирования с оценкой погрешности в середине; худший отрезок - первый в очереди
+    private static class AdaptiveSegment implements Comparable<AdaptiveSegment> {
+        private final double x0;
+        private final double y0;
+        private final double x1;
+        private final double y1;
+        private final double xMiddle;
+        private final double yMiddle;
+        private final double error;
 
-        // Создание массива значений Y путем вычисления функции в равномерно распределенных точках
-        double[] values = new double[pointsCount];
-        double step = (rightX - leftX) / (pointsCount - 1);
-        for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            values[i] = function.getFunctionValue(x);
+        AdaptiveSegment(Function function, double x0, double y0, double x1, double y1) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.xMiddle = x0 + (x1 - x0) / 2;
+            if (xMiddle > x0 && xMiddle < x1) {
+                this.yMiddle = function.getFunctionValue(xMiddle);
+                double deviation = Math.abs(yMiddle - (y0 + y1) / 2);
+                this.error = Double.isNaN(deviation) ? 0 : deviation;
+            }
+            else {
+                // Отрезок уже нельзя разделить в арифметике double
+                this.yMiddle = Double.NaN;
+                this.error = 0;
+            }
+        }
+
+        @Override
+        public int compareTo(AdaptiveSegment other) {
+            return Double.compare(other.error, error);
         }
-        return new ArrayTabulatedFunction(leftX, rightX, values);
     }
+    // Задача параллельного табулирования: делит диапазон пополам, пока он больше grainSize
+    private static class TabulationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1640639340595010734L;
+
+        private final Function function;
+        private final double leftX;
+        private final double step;
+        private final double[] values;
+        private final int from;
+        private final int to;
+        private final int grainSize;
+
+        TabulationTask(Function function, double leftX, double step, double[] values, int from, int to, int grainSize) {
+            this.function = function;
+            this.leftX = leftX;
+            this.step = step;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                fillValues(function, leftX, step, values, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TabulationTask(function, leftX, step, values, from, middle, grainSize),
+                    new TabulationTask(function, leftX, step, values, middle, to, grainSize));
+        }
+    }
+
     public static void outputTabulatedFunction(TabulatedFunction function, OutputStream out) {
         DataOutputStream dataOut = new DataOutputStream(out);
         try {
@@ -49,10 +238,18 @@ public class TabulatedFunctions {
             throw new RuntimeException("Ошибка при выводе табулированной функции", e);
         }
     }
+    // Формат определяется по первым 4 байтам: читаются и старый формат, и компактный
     public static TabulatedFunction inputTabulatedFunction(InputStream in) {
         DataInputStream dataIn = new DataInputStream(in);
         try {
             int pointsCount = dataIn.readInt();
+            if (pointsCount == CompactFormat.MAGIC) {
+                byte[] header = new byte[CompactFormat.HEADER_SIZE - 4];
+                dataIn.readFully(header);
+                byte[] payload = new byte[CompactFormat.payloadLength(header)];
+                dataIn.readFully(payload);
+                return CompactFormat.decode(header, payload);
+            }
             if (pointsCount < 2) {
                 throw new RuntimeException("Некорректное количество точек: " + pointsCount);
             }
@@ -68,15 +265,195 @@ public class TabulatedFunctions {
             throw new RuntimeException("Ошибка при вводе табулированной функции", e);
         }
     }
+    // Компактный двоичный формат, см. CompactFormat: заголовок с версией и контрольной суммой,
+    // равномерная сетка (как у tabulate) хранится как левая граница и шаг, а значения записываются
+    // в выбранном кодировании. Читается теми же inputTabulatedFunction, что и старый формат
+    public static void outputCompactTabulatedFunction(TabulatedFunction function, OutputStream out, ValueEncoding encoding) {
+        ByteBuffer bytes = CompactFormat.encode(function, encoding);
+        try {
+            out.write(bytes.array(), 0, bytes.limit());
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Ошибка при выводе табулированной функции", e);
+        }
+    }
+    public static void outputCompactTabulatedFunction(TabulatedFunction function, WritableByteChannel out, ValueEncoding encoding) {
+        ByteBuffer bytes = CompactFormat.encode(function, encoding);
+        try {
+            writeFully(out, bytes);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Ошибка при выводе табулированной функции", e);
+        }
+    }
+    // Тот же двоичный формат через каналы NIO: координаты передаются блоками через ByteBuffer,
+    // а не по одному double. Из канала читается ровно столько байт, сколько занимает функция
+    public static void outputTabulatedFunction(TabulatedFunction function, WritableByteChannel out) {
+        try {
+            int pointsCount = function.getPointsCount();
+            ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BLOCK_SIZE);
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            buffer.putInt(0, pointsCount);
+            buffer.limit(4);
+            writeFully(out, buffer);
+
+            double[] block = new double[CHANNEL_BLOCK_SIZE / 8];
+            for (int from = 0; from < pointsCount; from += block.length / 2) {
+                int count = Math.min(block.length / 2, pointsCount - from);
+                for (int i = 0; i < count; i++) {
+                    block[2 * i] = function.getPointX(from + i);
+                    block[2 * i + 1] = function.getPointY(from + i);
+                }
+                doubles.clear();
+                doubles.put(block, 0, 2 * count);
+                buffer.clear();
+                buffer.limit(16 * count);
+                writeFully(out, buffer);
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Ошибка при выводе табулированной функции", e);
+        }
+    }
+    // Координаты читаются сразу в массивы будущей ArrayTabulatedFunction.
+    // Как и при чтении из потока, компактный формат определяется автоматически
+    public static TabulatedFunction inputTabulatedFunction(ReadableByteChannel in) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BLOCK_SIZE);
+            int pointsCount = readPointsCount(in, buffer);
+            if (pointsCount == CompactFormat.MAGIC) {
+                return readCompact(in);
+            }
+            double[] xValues = new double[pointsCount];
+            double[] yValues = new double[pointsCount];
+            double[] block = new double[CHANNEL_BLOCK_SIZE / 8];
+            for (int from = 0; from < pointsCount; from += block.length / 2) {
+                int count = Math.min(block.length / 2, pointsCount - from);
+                readBlock(in, buffer, block, count);
+                for (int i = 0; i < count; i++) {
+                    xValues[from + i] = block[2 * i];
+                    yValues[from + i] = block[2 * i + 1];
+                }
+            }
+            return new ArrayTabulatedFunction(xValues, yValues, pointsCount);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Ошибка при вводе табулированной функции", e);
+        }
+    }
+    // Потоковое чтение: точки передаются получателю по мере чтения, и таблица целиком
+    // в памяти не хранится. Возвращает количество прочитанных точек.
+    // Компактный формат проверяется по контрольной сумме целиком, поэтому он сначала читается
+    // полностью, и точки передаются получателю уже после этого
+    public static int inputTabulatedFunction(ReadableByteChannel in, PointConsumer consumer) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BLOCK_SIZE);
+            int pointsCount = readPointsCount(in, buffer);
+            if (pointsCount == CompactFormat.MAGIC) {
+                TabulatedFunction function = readCompact(in);
+                for (int i = 0; i < function.getPointsCount(); i++) {
+                    consumer.accept(function.getPointX(i), function.getPointY(i));
+                }
+                return function.getPointsCount();
+            }
+            double[] block = new double[CHANNEL_BLOCK_SIZE / 8];
+            for (int from = 0; from < pointsCount; from += block.length / 2) {
+                int count = Math.min(block.length / 2, pointsCount - from);
+                readBlock(in, buffer, block, count);
+                for (int i = 0; i < count; i++) {
+                    consumer.accept(block[2 * i], block[2 * i + 1]);
+                }
+            }
+            return pointsCount;
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Ошибка при вводе табулированной функции", e);
+        }
+    }
+    private static int readPointsCount(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        buffer.limit(4);
+        readFully(in, buffer);
+        int pointsCount = buffer.getInt(0);
+        if (pointsCount < 2 && pointsCount != CompactFormat.MAGIC) {
+            throw new RuntimeException("Некорректное количество точек: " + pointsCount);
+        }
+        return pointsCount;
+    }
+    // Чтение компактного формата после MAGIC
+    private static TabulatedFunction readCompact(ReadableByteChannel in) throws IOException {
+        byte[] header = new byte[CompactFormat.HEADER_SIZE - 4];
+        readFully(in, ByteBuffer.wrap(header));
+        byte[] payload = new byte[CompactFormat.payloadLength(header)];
+        readFully(in, ByteBuffer.wrap(payload));
+        return CompactFormat.decode(header, payload);
+    }
+    // Чтение count точек (2 * count значений double) в block
+    private static void readBlock(ReadableByteChannel in, ByteBuffer buffer, double[] block, int count) throws IOException {
+        buffer.clear();
+        buffer.limit(16 * count);
+        readFully(in, buffer);
+        buffer.flip();
+        buffer.asDoubleBuffer().get(block, 0, 2 * count);
+    }
+    private static void readFully(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                throw new EOFException("Неожиданный конец данных табулированной функции");
+            }
+        }
+    }
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+    // Табулированная функция только для чтения, отображённая в память прямо из файла
+    // в формате outputTabulatedFunction, см. MappedTabulatedFunction
+    public static TabulatedFunction mapTabulatedFunction(Path file) {
+        try {
+            return new MappedTabulatedFunction(file);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Ошибка при отображении табулированной функции в память", e);
+        }
+    }
     public static void writeTabulatedFunction(TabulatedFunction function, Writer out) {
-        PrintWriter writer = new PrintWriter(new BufferedWriter(out));
+        // Числа форматируются прямо в буфер записи кратчайшим способом, который читается обратно точно
+        TextNumberWriter writer = new TextNumberWriter(out);
         try {
             int pointsCount = function.getPointsCount();
-            writer.print(pointsCount);
+            writer.writeInt(pointsCount);
 
             for (int i = 0; i < pointsCount; i++) {
-                writer.print(" " + function.getPointX(i));
-                writer.print(" " + function.getPointY(i));
+                writer.write(' ');
+                writer.writeDouble(function.getPointX(i));
+                writer.write(' ');
+                writer.writeDouble(function.getPointY(i));
+            }
+            writer.flush();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка при записи табулированной функции", e);
+        }
+    }
+    // Запись для чтения человеком: fractionDigits знаков после запятой. Быстрее точной записи,
+    // но значения округляются, и прочитанная обратно функция может отличаться от исходной
+    public static void writeTabulatedFunction(TabulatedFunction function, Writer out, int fractionDigits) {
+        if (fractionDigits < 0 || fractionDigits > TextNumberWriter.MAX_FRACTION_DIGITS) {
+            throw new IllegalArgumentException("Количество знаков после запятой должно быть от 0 до "
+                    + TextNumberWriter.MAX_FRACTION_DIGITS + ": " + fractionDigits);
+        }
+        TextNumberWriter writer = new TextNumberWriter(out);
+        try {
+            int pointsCount = function.getPointsCount();
+            writer.writeInt(pointsCount);
+
+            for (int i = 0; i < pointsCount; i++) {
+                writer.write(' ');
+                writer.writeFixed(function.getPointX(i), fractionDigits);
+                writer.write(' ');
+                writer.writeFixed(function.getPointY(i), fractionDigits);
             }
             writer.flush();
         } catch (Exception e) {
@@ -84,43 +461,40 @@ public class TabulatedFunctions {
         }
     }
     public static TabulatedFunction readTabulatedFunction(Reader in) {
-        StreamTokenizer tokenizer = new StreamTokenizer(new BufferedReader(in));
+        // Числа разбираются прямо в буфере чтения, с той же точностью, что Double.parseDouble
+        TextNumberReader reader = new TextNumberReader(in);
         try {
-            // Устанавливаем, что числа должны считываться как числа
-            tokenizer.resetSyntax();
-            tokenizer.wordChars('a', 'z');
-            tokenizer.wordChars('A', 'Z');
-            tokenizer.wordChars(128 + 32, 255);
-            tokenizer.whitespaceChars(' ', ' ');
-            tokenizer.whitespaceChars('\n', '\n');
-            tokenizer.whitespaceChars('\r', '\r');
-            tokenizer.whitespaceChars('\t', '\t');
-            tokenizer.parseNumbers();
-
-            if (tokenizer.nextToken() != StreamTokenizer.TT_NUMBER) {
-                throw new RuntimeException("Ожидалось количество точек");
-            }
-            int pointsCount = (int)tokenizer.nval;
+            int pointsCount = (int) readNumber(reader, null, 0);
             if (pointsCount < 2) {
                 throw new RuntimeException("Некорректное количество точек: " + pointsCount);
             }
 
-            FunctionPoint[] points = new FunctionPoint[pointsCount];
+            double[] xValues = new double[pointsCount];
+            double[] yValues = new double[pointsCount];
             for (int i = 0; i < pointsCount; i++) {
-                if (tokenizer.nextToken() != StreamTokenizer.TT_NUMBER) {
-                    throw new RuntimeException("Ожидалась координата X точки " + i);
-                }
-                double x = tokenizer.nval;
-                if (tokenizer.nextToken() != StreamTokenizer.TT_NUMBER) {
-                    throw new RuntimeException("Ожидалась координата Y точки " + i);
-                }
-                double y = tokenizer.nval;
-                points[i] = new FunctionPoint(x, y);
+                xValues[i] = readNumber(reader, "X", i);
+                yValues[i] = readNumber(reader, "Y", i);
             }
-            return new ArrayTabulatedFunction(points);
+            return new ArrayTabulatedFunction(xValues, yValues, pointsCount);
         }
         catch (IOException e) {
             throw new RuntimeException("Ошибка при чтении табулированной функции", e);
         }
     }
+    // axis - "X" или "Y" для координаты точки point, null для количества точек.
+    // Сообщение об ошибке строится только при ошибке, чтобы не создавать строку на каждое число
+    private static double readNumber(TextNumberReader reader, String axis, int point) throws IOException {
+        if (!reader.hasNext()) {
+            throw new RuntimeException(expectedNumberMessage(axis, point));
+        }
+        try {
+            return reader.nextDouble();
+        }
+        catch (NumberFormatException e) {
+            throw new RuntimeException(expectedNumberMessage(axis, point), e);
+        }
+    }
+    private static String expectedNumberMessage(String axis, int point) {
+        return axis == null ? "Ожидалось количество точек" : "Ожидалась координата " + axis + " точки " + point;
+    }
 }
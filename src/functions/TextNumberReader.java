@@ -0,0 +1,273 @@
+package functions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+
+// Чтение чисел, разделённых пробелами, табуляциями и переводами строк, из текстового потока.
+// Символы читаются в один переиспользуемый буфер, и число разбирается прямо в нём, без создания
+// строки на каждое число. Результат совпадает с Double.parseDouble до последнего бита:
+// десятичная мантисса до 19 цифр переводится в double алгоритмом Эйзеля-Лемира
+// (умножение на 128-битное приближение степени пяти). Редкие случаи, которые он не покрывает
+// (больше 19 значащих цифр, NaN, Infinity, шестнадцатеричная запись), передаются Double.parseDouble
+final class TextNumberReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DIGITS = 19; // Столько десятичных цифр всегда помещается в 64 бита
+    private static final int MIN_POWER = -342; // Меньшие степени десяти дают 0 при любой мантиссе
+    private static final int MAX_POWER = 308; // Большие степени десяти дают бесконечность
+    private static final double[] EXACT_POWERS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // 5^q для q от MIN_POWER до MAX_POWER, нормализованные к 128 битам: пары (старшие, младшие 64 бита)
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    private final Reader in;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    TextNumberReader(Reader in) {
+        this.in = in;
+    }
+
+    // Пропускает разделители; false, если поток закончился
+    boolean hasNext() throws IOException {
+        while (true) {
+            while (position < limit && isSeparator(buffer[position])) {
+                position++;
+            }
+            if (position < limit) {
+                return true;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+    // Следующее число; вызывается после hasNext() == true.
+    // Если слово не является числом, выбрасывается NumberFormatException
+    double nextDouble() throws IOException {
+        int end = position;
+        while (true) {
+            while (end < limit && !isSeparator(buffer[end])) {
+                end++;
+            }
+            if (end < limit) {
+                break;
+            }
+            // Число продолжается за концом буфера: буфер сдвигается и дочитывается
+            int length = end - position;
+            if (!fill()) {
+                end = limit;
+                break;
+            }
+            end = position + length;
+        }
+        double value = parseDouble(buffer, position, end);
+        position = end;
+        return value;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+    // Непрочитанная часть переносится в начало буфера, и он дополняется из потока
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = java.util.Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int count = in.read(buffer, limit, buffer.length - limit);
+        if (count < 0) {
+            return false;
+        }
+        limit += count;
+        return true;
+    }
+
+    // Разбор числа из chars[from, to) по тем же правилам и с тем же результатом, что Double.parseDouble
+    static double parseDouble(char[] chars, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (chars[i] == '+' || chars[i] == '-')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0; // Беззнаковое: 19 цифр занимают до 64 бит
+        int digits = 0; // Значащие цифры в mantissa
+        int exponent = 0; // Десятичный порядок относительно mantissa
+        boolean anyDigits = false;
+        boolean truncated = false; // Отброшены ненулевые цифры после 19-й
+        while (i < to && chars[i] >= '0' && chars[i] <= '9') {
+            int digit = chars[i++] - '0';
+            anyDigits = true;
+            if (digits < MAX_DIGITS) {
+                if (mantissa != 0 || digit != 0) {
+                    mantissa = mantissa * 10 + digit;
+                    digits++;
+                }
+            }
+            else {
+                exponent++;
+                truncated |= digit != 0;
+            }
+        }
+        if (i < to && chars[i] == '.') {
+            i++;
+            while (i < to && chars[i] >= '0' && chars[i] <= '9') {
+                int digit = chars[i++] - '0';
+                anyDigits = true;
+                if (digits < MAX_DIGITS) {
+                    if (mantissa != 0 || digit != 0) {
+                        mantissa = mantissa * 10 + digit;
+                        digits++;
+                    }
+                    exponent--;
+                }
+                else {
+                    truncated |= digit != 0;
+                }
+            }
+        }
+        if (anyDigits && i < to && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (chars[i] == '+' || chars[i] == '-')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            while (i < to && chars[i] >= '0' && chars[i] <= '9') {
+                // Больше порядок не растёт, чтобы не переполнить int; результат от этого не меняется
+                int digit = chars[i++] - '0';
+                if (explicitExponent < 100_000_000) {
+                    explicitExponent = explicitExponent * 10 + digit;
+                }
+            }
+            if (i == exponentStart) {
+                return fallback(chars, from, to);
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (anyDigits && i == to - 1 && "fFdD".indexOf(chars[i]) >= 0) {
+            i++;
+        }
+        if (!anyDigits || i != to || truncated) {
+            return fallback(chars, from, to);
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        double value;
+        // 19 цифр могут не поместиться в long со знаком, поэтому mantissa сравнивается как беззнаковое
+        if (mantissa > 0 && mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+            // Мантисса и степень десяти представимы точно, одно деление или умножение округляется верно
+            value = exponent < 0 ? mantissa / EXACT_POWERS[-exponent] : mantissa * EXACT_POWERS[exponent];
+        }
+        else {
+            value = eiselLemire(mantissa, exponent);
+        }
+        return negative ? -value : value;
+    }
+    private static double fallback(char[] chars, int from, int to) {
+        return Double.parseDouble(new String(chars, from, to - from));
+    }
+
+    // Алгоритм Эйзеля-Лемира: mantissa * 10^exponent с верным округлением, mantissa != 0
+    private static double eiselLemire(long mantissa, int exponent) {
+        if (exponent < MIN_POWER) {
+            return 0.0;
+        }
+        if (exponent > MAX_POWER) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long w = mantissa << leadingZeros;
+        int index = 2 * (exponent - MIN_POWER);
+        long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            // Младших 64 бит произведения не хватает, учитывается вторая половина степени пяти
+            long secondHigh = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            long sum = low + secondHigh;
+            if (Long.compareUnsigned(secondHigh, sum) > 0) {
+                high++;
+            }
+            low = sum;
+        }
+        int upperBit = (int) (high >>> 63);
+        long bits = high >>> (upperBit + 9);
+        int power2 = ((217706 * exponent) >> 16) + 63 + upperBit - leadingZeros + 1023;
+        if (power2 <= 0) {
+            // Денормализованное число
+            if (-power2 + 1 >= 64) {
+                return 0.0;
+            }
+            bits >>>= -power2 + 1;
+            bits += bits & 1;
+            bits >>>= 1;
+            power2 = bits < (1L << 52) ? 0 : 1;
+            return Double.longBitsToDouble(bits | ((long) power2 << 52));
+        }
+        // Ровно посередине между двумя double: округление к чётному
+        if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23 && (bits & 3) == 1
+                && (bits << (upperBit + 9)) == high) {
+            bits &= ~1L;
+        }
+        bits += bits & 1;
+        bits >>>= 1;
+        if (bits >= (2L << 52)) {
+            bits = 1L << 52;
+            power2++;
+        }
+        bits &= ~(1L << 52);
+        if (power2 >= 0x7FF) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.longBitsToDouble(bits | ((long) power2 << 52));
+    }
+    // Старшие 64 бита беззнакового произведения двух 64-битных чисел
+    static long unsignedMultiplyHigh(long a, long b) {
+        long aLow = a & 0xFFFFFFFFL;
+        long aHigh = a >>> 32;
+        long bLow = b & 0xFFFFFFFFL;
+        long bHigh = b >>> 32;
+        long lowLow = aLow * bLow;
+        long highLow = aHigh * bLow;
+        long lowHigh = aLow * bHigh;
+        long middle = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + (lowHigh & 0xFFFFFFFFL);
+        return aHigh * bHigh + (highLow >>> 32) + (lowHigh >>> 32) + (middle >>> 32);
+    }
+    // Таблица степеней пяти вычисляется точно через BigInteger: для q >= 0 это 5^q, усечённое
+    // до старших 128 бит, для q < 0 - 2^b / 5^-q + 1, также приведённое к 128 битам
+    private static long[] powersOfFive() {
+        long[] table = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+            BigInteger value;
+            if (q >= 0) {
+                value = five.pow(q);
+            }
+            else {
+                BigInteger power = five.pow(-q);
+                int z = power.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                value = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+            }
+            int shift = value.bitLength() - 128;
+            value = shift > 0 ? value.shiftRight(shift) : value.shiftLeft(-shift);
+            int index = 2 * (q - MIN_POWER);
+            table[index] = value.shiftRight(64).longValue();
+            table[index + 1] = value.longValue();
+        }
+        return table;
+    }
+}
@@ -0,0 +1,311 @@
+package functions;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+
+// Запись чисел в текстовый поток через один переиспользуемый буфер, без создания строки на каждое число.
+// Основной режим - кратчайшая запись, по которой Double.parseDouble восстанавливает то же самое
+// значение (алгоритм Schubfach Джулиетти), в формате Double.toString: 0.001 <= |x| < 10^7
+// записываются обычной дробью, остальные - в виде d.dddE±n.
+// Режим с фиксированным числом знаков после запятой предназначен для чтения человеком:
+// он дешевле, но округляет значения и точного восстановления не гарантирует. Округление идёт
+// через умножение в double, поэтому в пограничных случаях последняя цифра может отличаться на единицу
+final class TextNumberWriter {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_NUMBER_LENGTH = 32; // С запасом длиннее любой записи числа
+    static final int MAX_FRACTION_DIGITS = 18;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    // Округлённое значение должно помещаться в long, иначе используется кратчайшая запись
+    private static final double MAX_FIXED = 9e18;
+
+    // Параметры double: точность, наименьший двоичный порядок, неявная единица мантиссы
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << 52;
+    private static final long T_MASK = C_MIN - 1;
+    private static final int BQ_MASK = 0x7FF;
+    // Денормализованные мантиссы меньше этой дают слишком грубый результат, для них берётся 10 * c
+    private static final long C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long MASK_63 = 0x7FFFFFFFFFFFFFFFL;
+    // 10^-k для k от K_MIN до K_MAX, приведённые к 126 битам с округлением вверх:
+    // пары (старшие, младшие 63 бита)
+    private static final long[] POWERS_OF_TEN_126 = powersOfTen();
+
+    private final Writer out;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final char[] digits = new char[20]; // Цифры числа, записанные с конца
+    private int position;
+
+    TextNumberWriter(Writer out) {
+        this.out = out;
+    }
+
+    void write(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = c;
+    }
+    void writeInt(int value) throws IOException {
+        ensureCapacity(MAX_NUMBER_LENGTH);
+        long v = value;
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        if (v == 0) {
+            buffer[position++] = '0';
+        }
+        else {
+            int count = toDigits(v);
+            appendDigits(digits.length - count, count);
+        }
+    }
+    // Кратчайшая запись, однозначно задающая value
+    void writeDouble(double value) throws IOException {
+        ensureCapacity(MAX_NUMBER_LENGTH);
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq == BQ_MASK) {
+            appendText(t != 0 ? "NaN" : bits < 0 ? "-Infinity" : "Infinity");
+            return;
+        }
+        if (bits < 0) {
+            buffer[position++] = '-';
+        }
+        if (bq != 0) {
+            // value = c * 2^q
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                // Целые числа записываются сразу
+                long f = c >> mq;
+                if (f << mq == c) {
+                    toChars(f, 0);
+                    return;
+                }
+            }
+            toDecimal(-mq, c, 0);
+        }
+        else if (t != 0) {
+            if (t < C_TINY) {
+                toDecimal(Q_MIN, 10 * t, -1);
+            }
+            else {
+                toDecimal(Q_MIN, t, 0);
+            }
+        }
+        else {
+            appendText("0.0");
+        }
+    }
+    // Запись с fractionDigits знаками после запятой (0 - без дробной части).
+    // Значения, которые в таком виде не помещаются в 19 цифр, а также NaN и бесконечности
+    // записываются кратчайшим способом
+    void writeFixed(double value, int fractionDigits) throws IOException {
+        double scaled = Math.abs(value) * POWERS_OF_TEN[fractionDigits];
+        if (!(scaled < MAX_FIXED)) {
+            writeDouble(value);
+            return;
+        }
+        ensureCapacity(MAX_NUMBER_LENGTH);
+        long rounded = Math.round(scaled);
+        if (value < 0 && rounded != 0) {
+            buffer[position++] = '-';
+        }
+        int count = rounded == 0 ? 0 : toDigits(rounded);
+        int start = digits.length - count;
+        if (count > fractionDigits) {
+            appendDigits(start, count - fractionDigits);
+            start += count - fractionDigits;
+            count = fractionDigits;
+        }
+        else {
+            buffer[position++] = '0';
+        }
+        if (fractionDigits > 0) {
+            buffer[position++] = '.';
+            for (int i = count; i < fractionDigits; i++) {
+                buffer[position++] = '0';
+            }
+            appendDigits(start, count);
+        }
+    }
+    // Сбрасывает буфер в поток и сам поток
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private void ensureCapacity(int count) throws IOException {
+        if (position + count > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+    private void appendText(String text) {
+        text.getChars(0, text.length(), buffer, position);
+        position += text.length();
+    }
+    private void appendDigits(int from, int count) {
+        System.arraycopy(digits, from, buffer, position, count);
+        position += count;
+    }
+    // Цифры положительного числа записываются в конец digits; возвращается их количество
+    private int toDigits(long value) {
+        int i = digits.length;
+        while (value > 0) {
+            long quotient = value / 10;
+            digits[--i] = (char) ('0' + (value - quotient * 10));
+            value = quotient;
+        }
+        return digits.length - i;
+    }
+
+    // Кратчайшее десятичное s * 10^k в интервале округления c * 2^q (раздел 9 статьи Джулиетти).
+    // dk - поправка порядка, если вместо c передано 10 * c
+    private void toDecimal(int q, long c, int dk) {
+        // Граница интервала включается, если мантисса чётная (округление к чётному)
+        int outside = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = floorLog10Pow2(q);
+        }
+        else {
+            // Для степени двойки нижний соседний double вдвое ближе верхнего
+            cbl = cb - 1;
+            k = floorLog10ThreeQuartersPow2(q);
+        }
+        int h = q + floorLog2Pow10(-k) + 2;
+        int index = 2 * (k - K_MIN);
+        long g1 = POWERS_OF_TEN_126[index];
+        long g0 = POWERS_OF_TEN_126[index + 1];
+
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // Сначала пробуется запись на одну цифру короче
+            long sp10 = s / 10 * 10;
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + outside <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + outside <= vbr;
+            if (upin != wpin) {
+                toChars(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + outside <= s << 2;
+        boolean win = (t << 2) + outside <= vbr;
+        if (uin != win) {
+            toChars(uin ? s : t, k + dk);
+            return;
+        }
+        // В интервал попадают оба кандидата: берётся ближайший к точному значению
+        long cmp = vb - ((s + t) << 1);
+        toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+    }
+    // Старшие биты произведения g * cp, округлённые к нечётному (младший бит учитывает отброшенную часть)
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = TextNumberReader.unsignedMultiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = TextNumberReader.unsignedMultiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    // Запись f * 10^e в формате Double.toString
+    private void toChars(long f, int e) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int count = toDigits(f);
+        int start = digits.length - count;
+        int exponent = e + count - 1; // Порядок первой цифры
+        if (exponent >= 0 && exponent < 7) {
+            int integerDigits = exponent + 1;
+            if (count > integerDigits) {
+                appendDigits(start, integerDigits);
+                buffer[position++] = '.';
+                appendDigits(start + integerDigits, count - integerDigits);
+            }
+            else {
+                appendDigits(start, count);
+                for (int i = count; i < integerDigits; i++) {
+                    buffer[position++] = '0';
+                }
+                buffer[position++] = '.';
+                buffer[position++] = '0';
+            }
+        }
+        else if (exponent < 0 && exponent >= -3) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            for (int i = exponent + 1; i < 0; i++) {
+                buffer[position++] = '0';
+            }
+            appendDigits(start, count);
+        }
+        else {
+            buffer[position++] = digits[start];
+            buffer[position++] = '.';
+            if (count > 1) {
+                appendDigits(start + 1, count - 1);
+            }
+            else {
+                buffer[position++] = '0';
+            }
+            buffer[position++] = 'E';
+            if (exponent < 0) {
+                buffer[position++] = '-';
+                exponent = -exponent;
+            }
+            int exponentDigits = toDigits(exponent);
+            appendDigits(digits.length - exponentDigits, exponentDigits);
+        }
+    }
+
+    // floor(q * log10(2))
+    private static int floorLog10Pow2(int q) {
+        return (int) (q * 661_971_961_083L >> 41);
+    }
+    // floor(q * log10(2) + log10(3/4))
+    private static int floorLog10ThreeQuartersPow2(int q) {
+        return (int) (q * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+    // floor(q * log2(10))
+    private static int floorLog2Pow10(int q) {
+        return (int) (q * 913_124_641_741L >> 38);
+    }
+    // Таблица вычисляется точно через BigInteger: g = floor(10^-k * 2^-r) + 1,
+    // где r = floorLog2Pow10(-k) - 125, так что 2^125 <= g < 2^126
+    private static long[] powersOfTen() {
+        long[] table = new long[2 * (K_MAX - K_MIN + 1)];
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int r = floorLog2Pow10(e) - 125;
+            BigInteger numerator = BigInteger.TEN.pow(Math.max(e, 0)).shiftLeft(Math.max(-r, 0));
+            BigInteger denominator = BigInteger.TEN.pow(Math.max(-e, 0)).shiftLeft(Math.max(r, 0));
+            BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+            int index = 2 * (k - K_MIN);
+            table[index] = g.shiftRight(63).longValue();
+            table[index + 1] = g.longValue() & MASK_63;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,178 @@
+package functions;
+
+import java.nio.ByteBuffer;
+
+// Способы записи последовательности double в компактном двоичном формате (см. outputCompactTabulatedFunction).
+// Все способы восстанавливают значения побитово, они различаются только размером данных
+public enum ValueEncoding {
+    // Значения записываются как есть, по 8 байт
+    RAW {
+        @Override
+        long maxEncodedSize(int count) {
+            return 8L * count;
+        }
+        @Override
+        long minEncodedSize(int count) {
+            return 8L * count;
+        }
+        @Override
+        int encode(double[] values, int count, byte[] out, int position) {
+            ByteBuffer buffer = ByteBuffer.wrap(out);
+            for (int i = 0; i < count; i++) {
+                buffer.putDouble(position, values[i]);
+                position += 8;
+            }
+            return position;
+        }
+        @Override
+        int decode(byte[] in, int position, double[] values, int count) {
+            ByteBuffer buffer = ByteBuffer.wrap(in);
+            for (int i = 0; i < count; i++) {
+                values[i] = buffer.getDouble(position);
+                position += 8;
+            }
+            return position;
+        }
+    },
+    // XOR с предыдущим значением: у близких соседних значений совпадают знак, порядок и старшие биты
+    // мантиссы, и от результата записываются только младшие значащие байты. Длины двух соседних
+    // значений хранятся в одном байте (по 4 бита)
+    XOR {
+        @Override
+        long maxEncodedSize(int count) {
+            return 8L * count + (count + 1) / 2;
+        }
+        @Override
+        long minEncodedSize(int count) {
+            return (count + 1) / 2;
+        }
+        @Override
+        int encode(double[] values, int count, byte[] out, int position) {
+            long previous = 0;
+            for (int i = 0; i < count; i += 2) {
+                long first = Double.doubleToRawLongBits(values[i]) ^ previous;
+                previous ^= first;
+                long second = 0;
+                if (i + 1 < count) {
+                    second = Double.doubleToRawLongBits(values[i + 1]) ^ previous;
+                    previous ^= second;
+                }
+                int firstLength = significantBytes(first);
+                int secondLength = significantBytes(second);
+                out[position++] = (byte) (firstLength << 4 | secondLength);
+                position = putBytes(out, position, first, firstLength);
+                position = putBytes(out, position, second, secondLength);
+            }
+            return position;
+        }
+        @Override
+        int decode(byte[] in, int position, double[] values, int count) {
+            long previous = 0;
+            for (int i = 0; i < count; i += 2) {
+                int lengths = in[position++];
+                int firstLength = lengths >>> 4 & 0xF;
+                int secondLength = lengths & 0xF;
+                if (firstLength > 8 || secondLength > 8) {
+                    throw new IllegalArgumentException("Некорректная длина значения");
+                }
+                previous ^= getBytes(in, position, firstLength);
+                position += firstLength;
+                values[i] = Double.longBitsToDouble(previous);
+                long second = getBytes(in, position, secondLength);
+                position += secondLength;
+                if (i + 1 < count) {
+                    previous ^= second;
+                    values[i + 1] = Double.longBitsToDouble(previous);
+                }
+            }
+            return position;
+        }
+    },
+    // Отклонение битового представления от линейного прогноза по двум предыдущим значениям
+    // (вторая разность) в виде числа переменной длины по 7 бит в байте. У гладкой функции
+    // на равномерной сетке вторые разности малы по сравнению с самими значениями
+    DELTA {
+        @Override
+        long maxEncodedSize(int count) {
+            return 10L * count;
+        }
+        @Override
+        long minEncodedSize(int count) {
+            return count;
+        }
+        @Override
+        int encode(double[] values, int count, byte[] out, int position) {
+            long previous = 0;
+            long beforePrevious = 0;
+            for (int i = 0; i < count; i++) {
+                long bits = Double.doubleToRawLongBits(values[i]);
+                long residual = bits - predict(previous, beforePrevious, i);
+                // Знак переносится в младший бит, чтобы малые по модулю отрицательные числа были короткими
+                long zigzag = residual << 1 ^ residual >> 63;
+                while ((zigzag & ~0x7FL) != 0) {
+                    out[position++] = (byte) (zigzag | 0x80);
+                    zigzag >>>= 7;
+                }
+                out[position++] = (byte) zigzag;
+                beforePrevious = previous;
+                previous = bits;
+            }
+            return position;
+        }
+        @Override
+        int decode(byte[] in, int position, double[] values, int count) {
+            long previous = 0;
+            long beforePrevious = 0;
+            for (int i = 0; i < count; i++) {
+                long zigzag = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    if (shift > 63) {
+                        throw new IllegalArgumentException("Слишком длинное число переменной длины");
+                    }
+                    b = in[position++];
+                    zigzag |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                long residual = zigzag >>> 1 ^ -(zigzag & 1);
+                long bits = predict(previous, beforePrevious, i) + residual;
+                values[i] = Double.longBitsToDouble(bits);
+                beforePrevious = previous;
+                previous = bits;
+            }
+            return position;
+        }
+        private long predict(long previous, long beforePrevious, int index) {
+            return index < 2 ? previous : 2 * previous - beforePrevious;
+        }
+    };
+
+    // Наибольший размер в байтах, который может занять count значений
+    abstract long maxEncodedSize(int count);
+    // Наименьший размер в байтах, который могут занять count значений
+    abstract long minEncodedSize(int count);
+    // Запись count значений в out начиная с position; возвращает позицию после записанного
+    abstract int encode(double[] values, int count, byte[] out, int position);
+    // Чтение count значений; возвращает позицию после прочитанного. На некорректных данных
+    // выбрасывается IllegalArgumentException или ArrayIndexOutOfBoundsException
+    abstract int decode(byte[] in, int position, double[] values, int count);
+
+    private static int significantBytes(long value) {
+        return (64 - Long.numberOfLeadingZeros(value) + 7) >>> 3;
+    }
+    // Младшие length байт value, начиная со старшего из них
+    private static int putBytes(byte[] out, int position, long value, int length) {
+        for (int shift = 8 * (length - 1); shift >= 0; shift -= 8) {
+            out[position++] = (byte) (value >>> shift);
+        }
+        return position;
+    }
+    private static long getBytes(byte[] in, int position, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value << 8 | in[position + i] & 0xFF;
+        }
+        return value;
+    }
+}
@@ -5,4 +5,11 @@ public class Cos extends TrigonometricFunction {
     public double getFunctionValue(double x) {
         return Math.cos(x);
     }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            out[i] = Math.cos(xs[i]);
+        }
+    }
 }
@@ -15,4 +15,11 @@ public class Exp implements Function {
     public double getFunctionValue(double x) {
         return Math.exp(x);
     }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            out[i] = Math.exp(xs[i]);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package functions.basic;
+
+// Быстрый cos: погрешность не больше 2 ulp при |x| <= 1.6e6, дальше - Math.cos
+public class FastCos extends TrigonometricFunction {
+    public static final double MAX_ULP_ERROR = 2;
+
+    @Override
+    public double getFunctionValue(double x) {
+        return FastMath.cos(x);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        FastMath.cos(xs, out, from, len);
+    }
+}
@@ -0,0 +1,26 @@
+package functions.basic;
+
+import functions.Function;
+
+// Быстрая экспонента: таблица 2^(j/64) и многочлен на |r| <= ln2/128,
+// погрешность не больше 2 ulp при |x| <= 708, дальше - Math.exp
+public class FastExp implements Function {
+    public static final double MAX_ULP_ERROR = 2;
+
+    @Override
+    public double getLeftDomainBorder() {
+        return Double.NEGATIVE_INFINITY;
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return Double.POSITIVE_INFINITY;
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        return FastMath.exp(x);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        FastMath.exp(xs, out, from, len);
+    }
+}
@@ -0,0 +1,36 @@
+package functions.basic;
+
+import functions.Function;
+
+// Быстрый логарифм: натуральный логарифм с погрешностью не больше 1 ulp, умноженный
+// на заранее вычисленное 1 / ln(base). Округления множителя и произведения добавляют погрешность,
+// и для произвольного основания она не больше 4 ulp (для основания e - 1 ulp)
+public class FastLog implements Function {
+    public static final double MAX_ULP_ERROR = 4;
+
+    private final double inverseLogBase;
+
+    public FastLog(double base) {
+        if (base <= 0 || base == 1) {
+            throw new IllegalArgumentException("Основание логарифма должно быть положительным и не равным 1");
+        }
+        this.inverseLogBase = 1 / Math.log(base);
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return 0; // Логарифм определен для x > 0
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return Double.POSITIVE_INFINITY;
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        return FastMath.log(x) * inverseLogBase; // Для x <= 0 - NaN
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        FastMath.log(xs, out, from, len, inverseLogBase);
+    }
+}
@@ -0,0 +1,454 @@
+package functions.basic;
+
+// Приближённые sin, cos, tan, exp и log для быстрых вариантов базовых функций.
+// Аргумент сводится к малому отрезку (вычитанием кратного pi/2 или ln2/64 с константой,
+// разбитой на части, чтобы произведения были точными), а на отрезке значение даёт многочлен.
+// sin и cos вычисляются вместе, без ветвления по четверти, и tan получается из них же за один проход.
+// Границы погрешности объявлены в классах Fast...; вне диапазонов быстрой ветви
+// (и для NaN и бесконечностей) вызывается Math.
+// Пакетные варианты дают те же значения побитово. Способ выбирается один раз при загрузке класса:
+// - движок на Vector API (VectorFastMath), если модуль jdk.incubator.vector подключён и класс собран
+//   (он лежит в src-vector и загружается по имени, так что остальное дерево собирается без модуля);
+// - иначе, если C2 векторизует циклы (SuperWord), блок аргументов считается несколькими проходами:
+//   каждый проход - короткий цикл по массивам без ветвлений и вызовов. Поиск в таблице, операции
+//   с битами и аргументы вне быстрого диапазона обрабатываются отдельными скалярными проходами;
+// - иначе, и для коротких пакетов, - обычный цикл по скалярным функциям: без векторизации
+//   проходы по блокам медленнее него
+final class FastMath {
+    // Константы доступны в пакете: их использует и VectorFastMath
+
+    // Диапазон сведения по pi/2: k * PIO2_1 и k * PIO2_2 точны при |k| < 2^20
+    static final double TRIG_LIMIT = 1.6e6;
+    // При |x| < 2^-27 sin x и tan x равны x после округления (как в fdlibm); так же сохраняется знак нуля
+    static final double TINY = 0x1p-27;
+    // Диапазон exp, в котором и результат, и множитель 2^m нормализованы
+    static final double EXP_LIMIT = 708;
+
+    static final double TWO_OVER_PI = 6.36619772367581382433e-01;
+    // pi/2 = PIO2_1 + PIO2_2 + PIO2_3 + PIO2_3T, у первых трёх частей по 33 значащих бита
+    static final double PIO2_1 = 1.57079632673412561417e+00;
+    static final double PIO2_2 = 6.07710050630396597660e-11;
+    static final double PIO2_3 = 2.02226624871116645580e-21;
+    static final double PIO2_3T = 8.47842766036889956997e-32;
+    // Прибавление и вычитание 1.5 * 2^52 округляет до целого к ближайшему
+    static final double ROUND = 6755399441055744.0;
+
+    // Многочлены sin и cos на [-pi/4, pi/4] (ядра fdlibm)
+    static final double S1 = -1.66666666666666324348e-01;
+    static final double S2 = 8.33333333332248946124e-03;
+    static final double S3 = -1.98412698298579493134e-04;
+    static final double S4 = 2.75573137070700676789e-06;
+    static final double S5 = -2.50507602534068634195e-08;
+    static final double S6 = 1.58969099521155010221e-10;
+    static final double C1 = 4.16666666666666019037e-02;
+    static final double C2 = -1.38888888888741095749e-03;
+    static final double C3 = 2.48015872894767294178e-05;
+    static final double C4 = -2.75573143513906633035e-07;
+    static final double C5 = 2.08757232129817482790e-09;
+    static final double C6 = -1.13596475577881948265e-11;
+
+    // exp: x = (64 m + j) ln2/64 + r, |r| <= ln2/128; у LN2_64_HI 32 значащих бита
+    static final double SIXTY_FOUR_OVER_LN2 = 92.33248261689366;
+    static final double LN2_64_HI = 0.01083042469326756;
+    static final double LN2_64_LO = 2.9815858269852933e-12;
+    static final double[] EXP2_TABLE = new double[64]; // 2^(j/64)
+
+    // log: ядро fdlibm, log(1 + f) через s = f / (2 + f)
+    static final double LN2_HI = 6.93147180369123816490e-01;
+    static final double LN2_LO = 1.90821492927058770002e-10;
+    static final double LG1 = 6.666666666666735130e-01;
+    static final double LG2 = 3.999999999940941908e-01;
+    static final double LG3 = 2.857142874366239149e-01;
+    static final double LG4 = 2.222219843214978396e-01;
+    static final double LG5 = 1.818357216161805012e-01;
+    static final double LG6 = 1.531383769920937332e-01;
+    static final double LG7 = 1.479819860511658591e-01;
+    static final long ONE_BITS = 0x3FF0000000000000L;
+    static final long HALF_SQRT2_BITS = 0x3FE6A09E00000000L; // sqrt(2)/2 с обнулёнными младшими битами
+    private static final double TWO_54 = 18014398509481984.0;
+
+    // Аргументов в блоке пакетного вычисления: промежуточные массивы блока остаются в кэше L1.
+    // Циклы короче развёртки векторизованного цикла выполняются скалярно, так что блок должен быть заметно длиннее
+    private static final int BLOCK = 512;
+    // Пакеты короче считаются обычным циклом: на них проходы по блокам не окупаются
+    private static final int MIN_BLOCK_LEN = 128;
+
+    // Пакетные варианты с теми же значениями, что у скалярных функций этого класса
+    interface BatchKernels {
+        void sin(double[] xs, double[] out, int from, int len);
+        void cos(double[] xs, double[] out, int from, int len);
+        void tan(double[] xs, double[] out, int from, int len, double cosEpsilon);
+        void exp(double[] xs, double[] out, int from, int len);
+        void log(double[] xs, double[] out, int from, int len, double factor);
+    }
+
+    private static final BatchKernels VECTOR; // null, если Vector API недоступен
+    private static final boolean BLOCKS;
+    // Промежуточные массивы проходов по блокам, свои у каждого потока
+    private static final ThreadLocal<double[][]> BLOCK_BUFFERS = ThreadLocal.withInitial(() -> new double[5][BLOCK]);
+
+    static {
+        for (int j = 0; j < EXP2_TABLE.length; j++) {
+            EXP2_TABLE[j] = StrictMath.pow(2, j / 64.0);
+        }
+        // После таблицы: движок читает её при вычислении
+        VECTOR = loadVectorKernels();
+        BLOCKS = superWordEnabled();
+    }
+
+    private FastMath() {
+        throw new AssertionError("Невозможно создать экземпляр класса FastMath");
+    }
+
+    private static BatchKernels loadVectorKernels() {
+        try {
+            return (BatchKernels) Class.forName("functions.basic.VectorFastMath").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            // Класс не собран, модуль jdk.incubator.vector не подключён или векторы слишком коротки
+            return null;
+        }
+    }
+    // Векторизует ли JIT циклы: HotSpot с C2 и включённым SuperWord
+    private static boolean superWordEnabled() {
+        try {
+            com.sun.management.HotSpotDiagnosticMXBean diagnostics = java.lang.management.ManagementFactory
+                    .getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            return Boolean.parseBoolean(diagnostics.getVMOption("UseSuperWord").getValue())
+                    && Integer.parseInt(diagnostics.getVMOption("TieredStopAtLevel").getValue()) >= 4;
+        }
+        catch (RuntimeException | LinkageError e) {
+            return false;
+        }
+    }
+    private static boolean useBlocks(int len) {
+        return BLOCKS && len >= MIN_BLOCK_LEN;
+    }
+
+    static double sin(double x) {
+        if (!(Math.abs(x) <= TRIG_LIMIT)) {
+            return Math.sin(x);
+        }
+        if (Math.abs(x) < TINY) {
+            return x;
+        }
+        double kd = x * TWO_OVER_PI + ROUND - ROUND;
+        int k = (int) kd;
+        double r = reduce(x, kd);
+        double s = sinPolynomial(r);
+        double c = cosPolynomial(r);
+        // sin(r + k pi/2): четверть 1 - cos r, 2 - -sin r, 3 - -cos r
+        return select(s, c, k, k);
+    }
+    static double cos(double x) {
+        if (!(Math.abs(x) <= TRIG_LIMIT)) {
+            return Math.cos(x);
+        }
+        double kd = x * TWO_OVER_PI + ROUND - ROUND;
+        int k = (int) kd;
+        double r = reduce(x, kd);
+        double s = sinPolynomial(r);
+        double c = cosPolynomial(r);
+        // cos(r + k pi/2): четверть 1 - -sin r, 2 - -cos r, 3 - sin r
+        return select(c, s, k, k + 1);
+    }
+    // tan x = sin x / cos x по одному сведению; NaN, если |cos x| <= cosEpsilon (как в Tan)
+    static double tan(double x, double cosEpsilon) {
+        if (!(Math.abs(x) <= TRIG_LIMIT)) {
+            return Math.abs(Math.cos(x)) <= cosEpsilon ? Double.NaN : Math.tan(x);
+        }
+        if (Math.abs(x) < TINY) {
+            return x;
+        }
+        double kd = x * TWO_OVER_PI + ROUND - ROUND;
+        int k = (int) kd;
+        double r = reduce(x, kd);
+        double s = sinPolynomial(r);
+        double c = cosPolynomial(r);
+        // В нечётной четверти tan x = -cos r / sin r, и |cos x| = |sin r|
+        double numerator = select(s, c, k, k << 1);
+        double denominator = select(c, s, k, 0);
+        if (Math.abs(denominator) <= cosEpsilon) {
+            return Double.NaN;
+        }
+        return numerator / denominator;
+    }
+    // even при чётном k, иначе odd; знак меняется, если в sign установлен бит 2.
+    // Выбор по маскам битов, без условных переходов: четверть случайного аргумента
+    // непредсказуема, и ветвления стоили бы больше самих многочленов
+    private static double select(double even, double odd, int k, int sign) {
+        long mask = -(long) (k & 1);
+        long bits = Double.doubleToRawLongBits(even) & ~mask | Double.doubleToRawLongBits(odd) & mask;
+        return Double.longBitsToDouble(bits ^ (long) (sign & 2) << 62);
+    }
+    // r = x - k pi/2 с точностью до младших битов PIO2_3T
+    private static double reduce(double x, double kd) {
+        double r = x - kd * PIO2_1;
+        r -= kd * PIO2_2;
+        r -= kd * PIO2_3;
+        return r - kd * PIO2_3T;
+    }
+    // sin r и cos r при |r| <= pi/4; многочлены по z = r^2 вычисляются по схеме Эстрина,
+    // так что цепочка зависимых умножений короче, чем у схемы Горнера
+    private static double sinPolynomial(double r) {
+        double z = r * r;
+        double w = z * z;
+        return r + r * z * (S1 + z * S2 + w * (S3 + z * S4) + w * w * (S5 + z * S6));
+    }
+    private static double cosPolynomial(double r) {
+        double z = r * r;
+        double w = z * z;
+        return 1 - 0.5 * z + w * (C1 + z * C2 + w * (C3 + z * C4) + w * w * (C5 + z * C6));
+    }
+
+    static void sin(double[] xs, double[] out, int from, int len) {
+        if (VECTOR != null) {
+            VECTOR.sin(xs, out, from, len);
+        }
+        else if (useBlocks(len)) {
+            trigonometric(xs, out, from, len, 0);
+        }
+        else {
+            for (int i = from; i < from + len; i++) {
+                out[i] = sin(xs[i]);
+            }
+        }
+    }
+    static void cos(double[] xs, double[] out, int from, int len) {
+        if (VECTOR != null) {
+            VECTOR.cos(xs, out, from, len);
+        }
+        else if (useBlocks(len)) {
+            trigonometric(xs, out, from, len, 1);
+        }
+        else {
+            for (int i = from; i < from + len; i++) {
+                out[i] = cos(xs[i]);
+            }
+        }
+    }
+    // sin(x + shift pi/2) для блока: cos x = sin(x + pi/2), то есть та же четверть, сдвинутая на 1
+    private static void trigonometric(double[] xs, double[] out, int from, int len, int shift) {
+        double[][] buffers = BLOCK_BUFFERS.get();
+        double[] x = buffers[0];
+        double[] k = buffers[1];
+        double[] r = buffers[2];
+        double[] s = buffers[3];
+        double[] c = buffers[4];
+        for (int start = from; start < from + len; start += BLOCK) {
+            int n = Math.min(BLOCK, from + len - start);
+            // Блок копируется, чтобы xs и out могли быть одним массивом
+            System.arraycopy(xs, start, x, 0, n);
+            trigonometricBlock(x, k, r, s, c, n, shift);
+            System.arraycopy(s, 0, out, start, n);
+        }
+    }
+    // Проходы по одному блоку, результат - в s. Отдельный метод вызывается на каждый блок и
+    // компилируется обычным образом, а не заменой на стеке (OSR) посреди длинного цикла по блокам,
+    // после которой циклы проходов не векторизуются
+    private static void trigonometricBlock(double[] x, double[] k, double[] r, double[] s, double[] c, int n, int shift) {
+        reduce(x, k, r, n);
+        for (int i = 0; i < n; i++) {
+            s[i] = sinPolynomial(r[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            c[i] = cosPolynomial(r[i]);
+        }
+        // Выбор по четверти арифметикой над целыми k: odd и половина - 0 или 1, умножение
+        // на них и сложение с нулём точны, поэтому значение то же, что у выбора битами
+        for (int i = 0; i < n; i++) {
+            double kd = k[i] + shift;
+            double half = Math.floor(kd * 0.5);
+            double odd = kd - 2 * half;
+            double sign = 1 - 2 * (half - 2 * Math.floor(kd * 0.25));
+            s[i] = sign * ((1 - odd) * s[i] + odd * c[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            if (!(Math.abs(x[i]) <= TRIG_LIMIT)) {
+                s[i] = shift == 0 ? Math.sin(x[i]) : Math.cos(x[i]);
+            }
+            else if (shift == 0 && Math.abs(x[i]) < TINY) {
+                s[i] = x[i];
+            }
+        }
+    }
+    static void tan(double[] xs, double[] out, int from, int len, double cosEpsilon) {
+        if (VECTOR != null) {
+            VECTOR.tan(xs, out, from, len, cosEpsilon);
+            return;
+        }
+        if (!useBlocks(len)) {
+            for (int i = from; i < from + len; i++) {
+                out[i] = tan(xs[i], cosEpsilon);
+            }
+            return;
+        }
+        double[][] buffers = BLOCK_BUFFERS.get();
+        double[] x = buffers[0];
+        double[] k = buffers[1];
+        double[] r = buffers[2];
+        double[] s = buffers[3];
+        double[] c = buffers[4];
+        for (int start = from; start < from + len; start += BLOCK) {
+            int n = Math.min(BLOCK, from + len - start);
+            System.arraycopy(xs, start, x, 0, n);
+            tanBlock(x, k, r, s, c, n, cosEpsilon);
+            System.arraycopy(s, 0, out, start, n);
+        }
+    }
+    private static void tanBlock(double[] x, double[] k, double[] r, double[] s, double[] c, int n, double cosEpsilon) {
+        reduce(x, k, r, n);
+        for (int i = 0; i < n; i++) {
+            s[i] = sinPolynomial(r[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            c[i] = cosPolynomial(r[i]);
+        }
+        // Числитель s или -c, знаменатель c или s; в r остаётся знаменатель, в s - частное
+        for (int i = 0; i < n; i++) {
+            double kd = k[i];
+            double odd = kd - 2 * Math.floor(kd * 0.5);
+            double numerator = (1 - odd) * s[i] - odd * c[i];
+            double denominator = (1 - odd) * c[i] + odd * s[i];
+            r[i] = denominator;
+            s[i] = numerator / denominator;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!(Math.abs(x[i]) <= TRIG_LIMIT) || Math.abs(x[i]) < TINY) {
+                s[i] = tan(x[i], cosEpsilon);
+            }
+            else if (Math.abs(r[i]) <= cosEpsilon) {
+                s[i] = Double.NaN;
+            }
+        }
+    }
+    // Номера четвертей и сведённые аргументы для блока
+    private static void reduce(double[] x, double[] k, double[] r, int n) {
+        for (int i = 0; i < n; i++) {
+            double kd = x[i] * TWO_OVER_PI + ROUND - ROUND;
+            k[i] = kd;
+            r[i] = reduce(x[i], kd);
+        }
+    }
+
+    static double exp(double x) {
+        if (!(Math.abs(x) <= EXP_LIMIT)) {
+            return Math.exp(x);
+        }
+        double kd = x * SIXTY_FOUR_OVER_LN2 + ROUND - ROUND;
+        int n = (int) kd;
+        return scale(n, expPolynomial(x, kd));
+    }
+    // exp(r) - 1 для r = x - kd ln2/64 рядом Тейлора: при |r| <= ln2/128 отброшенный член меньше 4e-17
+    private static double expPolynomial(double x, double kd) {
+        double r = x - kd * LN2_64_HI - kd * LN2_64_LO;
+        return r + r * r * (0.5 + r * (1.0 / 6 + r * (1.0 / 24 + r * (1.0 / 120))));
+    }
+    // 2^(n/64) (1 + p)
+    static double scale(int n, double p) {
+        double t = EXP2_TABLE[n & 63];
+        double scale = Double.longBitsToDouble((long) ((n >> 6) + 1023) << 52);
+        return (t + t * p) * scale;
+    }
+    static void exp(double[] xs, double[] out, int from, int len) {
+        if (VECTOR != null) {
+            VECTOR.exp(xs, out, from, len);
+            return;
+        }
+        if (!useBlocks(len)) {
+            for (int i = from; i < from + len; i++) {
+                out[i] = exp(xs[i]);
+            }
+            return;
+        }
+        double[][] buffers = BLOCK_BUFFERS.get();
+        double[] x = buffers[0];
+        double[] k = buffers[1];
+        double[] p = buffers[2];
+        for (int start = from; start < from + len; start += BLOCK) {
+            int n = Math.min(BLOCK, from + len - start);
+            System.arraycopy(xs, start, x, 0, n);
+            expBlock(x, k, p, out, start, n);
+        }
+    }
+    private static void expBlock(double[] x, double[] k, double[] p, double[] out, int offset, int n) {
+        for (int i = 0; i < n; i++) {
+            double kd = x[i] * SIXTY_FOUR_OVER_LN2 + ROUND - ROUND;
+            k[i] = kd;
+            p[i] = expPolynomial(x[i], kd);
+        }
+        // Таблица и сборка порядка - скалярно
+        for (int i = 0; i < n; i++) {
+            out[offset + i] = Math.abs(x[i]) <= EXP_LIMIT ? scale((int) k[i], p[i]) : Math.exp(x[i]);
+        }
+    }
+
+    // Натуральный логарифм; для x <= 0 - NaN, как у Log
+    static double log(double x) {
+        if (!(x > 0)) {
+            return Double.NaN;
+        }
+        if (x == Double.POSITIVE_INFINITY) {
+            return x;
+        }
+        int e = 0;
+        if (x < Double.MIN_NORMAL) {
+            x *= TWO_54;
+            e = -54;
+        }
+        // x = 2^e m, m в [sqrt(2)/2, sqrt(2)): сдвиг битов на разность порядков 1 и sqrt(2)/2
+        // переносит мантиссы больше sqrt(2) в следующий порядок без условного перехода
+        long bits = Double.doubleToRawLongBits(x) + (ONE_BITS - HALF_SQRT2_BITS);
+        e += (int) (bits >> 52) - 1023;
+        double m = Double.longBitsToDouble((bits & 0x000FFFFFFFFFFFFFL) + HALF_SQRT2_BITS);
+        return logPolynomial(m - 1, e);
+    }
+    // log(2^e (1 + f)) при 1 + f в [sqrt(2)/2, sqrt(2))
+    private static double logPolynomial(double f, double e) {
+        double s = f / (2 + f);
+        double z = s * s;
+        double w = z * z;
+        double t1 = w * (LG2 + w * (LG4 + w * LG6));
+        double t2 = z * (LG1 + w * (LG3 + w * (LG5 + w * LG7)));
+        double hfsq = 0.5 * f * f;
+        return e * LN2_HI - ((hfsq - (s * (hfsq + t1 + t2) + e * LN2_LO)) - f);
+    }
+    // log(x) * factor для блока
+    static void log(double[] xs, double[] out, int from, int len, double factor) {
+        if (VECTOR != null) {
+            VECTOR.log(xs, out, from, len, factor);
+            return;
+        }
+        if (!useBlocks(len)) {
+            for (int i = from; i < from + len; i++) {
+                out[i] = log(xs[i]) * factor;
+            }
+            return;
+        }
+        double[][] buffers = BLOCK_BUFFERS.get();
+        double[] x = buffers[0];
+        double[] f = buffers[1];
+        double[] e = buffers[2];
+        for (int start = from; start < from + len; start += BLOCK) {
+            int n = Math.min(BLOCK, from + len - start);
+            System.arraycopy(xs, start, x, 0, n);
+            logBlock(x, f, e, out, start, n, factor);
+        }
+    }
+    private static void logBlock(double[] x, double[] f, double[] e, double[] out, int offset, int n, double factor) {
+        // Разбор битов - скалярно; для особых x получится что угодно, они пересчитываются ниже
+        for (int i = 0; i < n; i++) {
+            long bits = Double.doubleToRawLongBits(x[i]) + (ONE_BITS - HALF_SQRT2_BITS);
+            e[i] = (int) (bits >> 52) - 1023;
+            f[i] = Double.longBitsToDouble((bits & 0x000FFFFFFFFFFFFFL) + HALF_SQRT2_BITS) - 1;
+        }
+        for (int i = 0; i < n; i++) {
+            out[offset + i] = logPolynomial(f[i], e[i]) * factor;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!(x[i] >= Double.MIN_NORMAL && x[i] < Double.POSITIVE_INFINITY)) {
+                out[offset + i] = log(x[i]) * factor;
+            }
+        }
+    }
+}
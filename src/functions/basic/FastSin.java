@@ -0,0 +1,15 @@
+package functions.basic;
+
+// Быстрый sin: погрешность не больше 2 ulp при |x| <= 1.6e6, дальше - Math.sin
+public class FastSin extends TrigonometricFunction {
+    public static final double MAX_ULP_ERROR = 2;
+
+    @Override
+    public double getFunctionValue(double x) {
+        return FastMath.sin(x);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        FastMath.sin(xs, out, from, len);
+    }
+}
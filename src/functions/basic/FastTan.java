@@ -0,0 +1,16 @@
+package functions.basic;
+
+// Быстрый tan: sin и cos за одно сведение аргумента, погрешность не больше 4 ulp при |x| <= 1.6e6.
+// Как и Tan, возвращает NaN, если |cos x| <= 1e-14
+public class FastTan extends TrigonometricFunction {
+    public static final double MAX_ULP_ERROR = 4;
+
+    @Override
+    public double getFunctionValue(double x) {
+        return FastMath.tan(x, 1e-14);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        FastMath.tan(xs, out, from, len, 1e-14);
+    }
+}
@@ -3,13 +3,13 @@ package functions.basic;
 import functions.Function;
 
 public class Log implements Function {
-    private final double base;
+    private final double logBase; // Знаменатель формулы перехода вычисляется один раз
 
     public Log(double base) {
         if (base <= 0 || base == 1) {
             throw new IllegalArgumentException("Основание логарифма должно быть положительным и не равным 1");
         }
-        this.base = base;
+        this.logBase = Math.log(base);
     }
 
     @Override
@@ -25,6 +25,14 @@ public class Log implements Function {
         if (x <= 0) {
             return Double.NaN; // Логарифм не определен для неположительных x
         }
-        return Math.log(x) / Math.log(base); // Формула перехода к новому основанию
+        return Math.log(x) / logBase; // Формула перехода к новому основанию
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            out[i] = x <= 0 ? Double.NaN : Math.log(x) / logBase;
+        }
     }
 }
@@ -5,4 +5,11 @@ public class Sin extends TrigonometricFunction {
     public double getFunctionValue(double x) {
         return Math.sin(x);
     }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            out[i] = Math.sin(xs[i]);
+        }
+    }
 }
\ No newline at end of file
@@ -10,4 +10,13 @@ public class Tan extends TrigonometricFunction {
         }
         return Math.tan(x);
     }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double epsilon = 1e-14;
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            out[i] = Math.abs(Math.cos(x)) <= epsilon ? Double.NaN : Math.tan(x);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package functions.meta;
+
+import functions.Function;
+
+// Общий вид цепочки сдвигов и масштабирований: одно вычисление вместо нескольких узлов Shift и Scale
+public class Affine implements Function {
+    private final Function f;
+    private final double scaleX;
+    private final double shiftX;
+    private final double scaleY;
+    private final double shiftY;
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
+
+    public Affine(Function f, double scaleX, double shiftX, double scaleY, double shiftY) {
+        if (scaleX == 0) {
+            throw new IllegalArgumentException("Коэффициент масштабирования не может быть равен нулю");
+        }
+        this.f = f;
+        this.scaleX = scaleX;
+        this.shiftX = shiftX;
+        this.scaleY = scaleY;
+        this.shiftY = shiftY;
+        this.fixedDomain = Domains.isFixed(f);
+        this.left = fixedDomain ? computeLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? computeRightDomainBorder() : Double.NaN;
+    }
+
+    // Параметры для упрощения выражений
+    Function getFunction() {
+        return f;
+    }
+    double getScaleX() {
+        return scaleX;
+    }
+    double getShiftX() {
+        return shiftX;
+    }
+    double getScaleY() {
+        return scaleY;
+    }
+    double getShiftY() {
+        return shiftY;
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return fixedDomain ? left : computeLeftDomainBorder();
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return fixedDomain ? right : computeRightDomainBorder();
+    }
+    private double computeLeftDomainBorder() {
+        if (scaleX > 0) {
+            return (f.getLeftDomainBorder() - shiftX) / scaleX;
+        }
+        return (f.getRightDomainBorder() - shiftX) / scaleX;
+    }
+    private double computeRightDomainBorder() {
+        if (scaleX > 0) {
+            return (f.getRightDomainBorder() - shiftX) / scaleX;
+        }
+        return (f.getLeftDomainBorder() - shiftX) / scaleX;
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
+            throw new IllegalArgumentException("x находится вне области определения функции");
+        }
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        return shiftY + scaleY * f.evaluateUnchecked(scaleX * x + shiftX);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x находится вне области определения функции");
+            }
+        }
+        // Аргументы исходной функции пишутся прямо в out, затем она вычисляется на месте
+        for (int i = from; i < to; i++) {
+            out[i] = scaleX * xs[i] + shiftX;
+        }
+        f.getFunctionValues(out, out, from, len);
+        for (int i = from; i < to; i++) {
+            out[i] = shiftY + scaleY * out[i];
+        }
+    }
+}
+// h(x) = b + k * f(m * x + c)
@@ -0,0 +1,34 @@
+package functions.meta;
+
+import java.util.Arrays;
+
+// Временные буферы пакетного вычисления n-арных узлов (Sum, Mult). Пакет обрабатывается частями
+// по CHUNK аргументов, и буферы частей берутся из стека, своего у каждого потока: узел берёт буферы
+// на время вычисления и возвращает их, а вложенные узлы получают следующие. Поэтому повторные
+// пакетные вычисления не выделяют памяти, а её расход не зависит от размера пакета
+final class BatchBuffers {
+    static final int CHUNK = 1024;
+
+    private static final ThreadLocal<BatchBuffers> BUFFERS = ThreadLocal.withInitial(BatchBuffers::new);
+
+    private double[][] stack = new double[0][];
+    private int depth;
+
+    static BatchBuffers get() {
+        return BUFFERS.get();
+    }
+
+    // Буфер из CHUNK элементов; возвращается release в обратном порядке
+    double[] acquire() {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth + 2);
+        }
+        if (stack[depth] == null) {
+            stack[depth] = new double[CHUNK];
+        }
+        return stack[depth++];
+    }
+    void release(int count) {
+        depth -= count;
+    }
+}
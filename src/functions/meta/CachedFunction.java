@@ -0,0 +1,364 @@
+package functions.meta;
+
+import functions.Function;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Функция с запоминанием значений: повторное вычисление в той же точке берётся из кэша.
+// Кэш ограничен по размеру, потокобезопасен и хранит ключи как long без упаковки в Double.
+// Он разбит на сегменты со своей блокировкой, каждый сегмент - хеш-таблица с открытой адресацией
+// и очереди вытеснения на массивах индексов. Если задан шаг квантования, x округляется до
+// ближайшего кратного шагу (в пределах области определения), и функция вычисляется уже в нём
+public class CachedFunction implements Function {
+    // Политика вытеснения
+    public enum Eviction {
+        // Вытесняется значение, к которому дольше всего не обращались
+        LRU,
+        // W-TinyLFU: новые значения попадают в небольшое окно LRU, а в основную часть кэша
+        // (сегментированный LRU) проходят, только если запрашиваются чаще вытесняемого.
+        // Частоты оцениваются приближённо по count-min sketch с периодическим старением
+        TINY_LFU
+    }
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+    // Признак отсутствия значения: сигнальный NaN, который Double.doubleToLongBits не возвращает
+    private static final long MISSING = 0x7ff0000000000001L;
+
+    private final Function function;
+    private final double quantum; // Шаг квантования, 0 - без квантования
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachedFunction(Function function, int capacity, Eviction eviction, double quantum) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + capacity);
+        }
+        if (eviction == null) {
+            throw new IllegalArgumentException("Политика вытеснения не может быть null");
+        }
+        if (!(quantum >= 0) || Double.isInfinite(quantum)) {
+            throw new IllegalArgumentException("Шаг квантования должен быть неотрицательным числом: " + quantum);
+        }
+        this.function = function;
+        this.quantum = quantum;
+
+        int count = 1;
+        while (count < MAX_SEGMENTS && capacity / (count * 2) >= MIN_SEGMENT_CAPACITY) {
+            count *= 2;
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            int segmentCapacity = capacity / count + (i < capacity % count ? 1 : 0);
+            segments[i] = new Segment(segmentCapacity, eviction);
+        }
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return function.getLeftDomainBorder();
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return function.getRightDomainBorder();
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        if (quantum > 0) {
+            x = quantize(x);
+        }
+        long key = Double.doubleToLongBits(x);
+        int hash = hash(key);
+        // При одном сегменте сдвиг равен 32, и Java берёт его по модулю 32, поэтому он обрабатывается отдельно
+        Segment segment = segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+        long bits = segment.get(key, hash);
+        if (bits != MISSING) {
+            hits.increment();
+            return Double.longBitsToDouble(bits);
+        }
+        misses.increment();
+        // Значение вычисляется вне блокировки; если два потока посчитают его одновременно,
+        // в кэше останется одно из двух одинаковых значений
+        double value = function.getFunctionValue(x);
+        segment.put(key, hash, value);
+        return value;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private double quantize(double x) {
+        double q = Math.rint(x / quantum) * quantum;
+        if (q == x) {
+            return x;
+        }
+        double left = function.getLeftDomainBorder();
+        double right = function.getRightDomainBorder();
+        if (q < left && x >= left) {
+            return left;
+        }
+        if (q > right && x <= right) {
+            return right;
+        }
+        return q;
+    }
+    // Перемешивание битов ключа (финализатор MurmurHash3)
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    // Сегмент кэша. Записи занимают ячейки массивов keys/values, очереди - двусвязные кольцевые
+    // списки на массивах prev/next с заголовками в ячейках capacity..capacity + 2.
+    // Для LRU используется только окно размером во весь сегмент
+    private static final class Segment {
+        private static final byte WINDOW = 0;
+        private static final byte PROBATION = 1;
+        private static final byte PROTECTED = 2;
+
+        private final int capacity;
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final int protectedCapacity;
+        private final long[] keys;
+        private final double[] values;
+        private final int[] prev;
+        private final int[] next;
+        private final byte[] queue; // В какой очереди находится запись
+        private final int[] table; // Индекс записи + 1, 0 - пустая ячейка
+        private final int tableMask;
+        private final int[] free; // Освобождённые ячейки
+        private final FrequencySketch sketch; // null для LRU
+
+        private int used; // Сколько ячеек когда-либо занято
+        private int freeCount;
+        private int windowSize;
+        private int probationSize;
+        private int protectedSize;
+
+        Segment(int capacity, Eviction eviction) {
+            this.capacity = capacity;
+            if (eviction == Eviction.LRU) {
+                windowCapacity = capacity;
+                sketch = null;
+            }
+            else {
+                windowCapacity = Math.max(1, capacity / 100);
+                sketch = new FrequencySketch(capacity);
+            }
+            mainCapacity = capacity - windowCapacity;
+            protectedCapacity = mainCapacity * 4 / 5;
+
+            keys = new long[capacity];
+            values = new double[capacity];
+            prev = new int[capacity + 3];
+            next = new int[capacity + 3];
+            queue = new byte[capacity];
+            for (int head = capacity; head < capacity + 3; head++) {
+                prev[head] = head;
+                next[head] = head;
+            }
+            int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) * 2;
+            table = new int[tableSize];
+            tableMask = tableSize - 1;
+            free = new int[capacity];
+        }
+
+        synchronized long get(long key, int hash) {
+            if (sketch != null) {
+                sketch.increment(hash);
+            }
+            int i = find(key, hash);
+            if (i < 0) {
+                return MISSING;
+            }
+            if (queue[i] == PROBATION) {
+                // Повторное обращение переводит запись в защищённую часть
+                unlink(i);
+                probationSize--;
+                link(i, PROTECTED);
+                protectedSize++;
+                if (protectedSize > protectedCapacity) {
+                    int demoted = next[capacity + PROTECTED];
+                    unlink(demoted);
+                    protectedSize--;
+                    link(demoted, PROBATION);
+                    probationSize++;
+                }
+            }
+            else {
+                byte current = queue[i];
+                unlink(i);
+                link(i, current);
+            }
+            return Double.doubleToLongBits(values[i]);
+        }
+        synchronized void put(long key, int hash, double value) {
+            int existing = find(key, hash);
+            if (existing >= 0) {
+                values[existing] = value;
+                return;
+            }
+            if (windowSize >= windowCapacity) {
+                evictFromWindow();
+            }
+            int i = freeCount > 0 ? free[--freeCount] : used++;
+            keys[i] = key;
+            values[i] = value;
+            link(i, WINDOW);
+            windowSize++;
+            insertIntoTable(i, hash);
+        }
+
+        // Самая старая запись окна переходит в основную часть или вытесняется
+        private void evictFromWindow() {
+            int candidate = next[capacity + WINDOW];
+            unlink(candidate);
+            windowSize--;
+            if (probationSize + protectedSize < mainCapacity) {
+                link(candidate, PROBATION);
+                probationSize++;
+                return;
+            }
+            int victim;
+            if (probationSize > 0) {
+                victim = next[capacity + PROBATION];
+            }
+            else if (protectedSize > 0) {
+                victim = next[capacity + PROTECTED];
+            }
+            else {
+                // Основной части нет (LRU)
+                evict(candidate);
+                return;
+            }
+            // Фильтр TinyLFU: в основную часть проходит более частый из двух ключей
+            if (sketch.frequency(hash(keys[candidate])) > sketch.frequency(hash(keys[victim]))) {
+                unlink(victim);
+                if (queue[victim] == PROBATION) {
+                    probationSize--;
+                }
+                else {
+                    protectedSize--;
+                }
+                evict(victim);
+                link(candidate, PROBATION);
+                probationSize++;
+            }
+            else {
+                evict(candidate);
+            }
+        }
+        // Удаление уже отсоединённой от очереди записи
+        private void evict(int i) {
+            removeFromTable(keys[i]);
+            free[freeCount++] = i;
+        }
+
+        private void link(int i, byte target) {
+            int head = capacity + target;
+            int last = prev[head];
+            next[last] = i;
+            prev[i] = last;
+            next[i] = head;
+            prev[head] = i;
+            queue[i] = target;
+        }
+        private void unlink(int i) {
+            next[prev[i]] = next[i];
+            prev[next[i]] = prev[i];
+        }
+
+        private int find(long key, int hash) {
+            for (int slot = hash & tableMask; table[slot] != 0; slot = (slot + 1) & tableMask) {
+                int i = table[slot] - 1;
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        private void insertIntoTable(int i, int hash) {
+            int slot = hash & tableMask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & tableMask;
+            }
+            table[slot] = i + 1;
+        }
+        // Удаление со сдвигом следующих записей, чтобы не оставлять "надгробий"
+        private void removeFromTable(long key) {
+            int slot = hash(key) & tableMask;
+            while (keys[table[slot] - 1] != key) {
+                slot = (slot + 1) & tableMask;
+            }
+            int gap = slot;
+            for (int j = (gap + 1) & tableMask; table[j] != 0; j = (j + 1) & tableMask) {
+                int home = hash(keys[table[j] - 1]) & tableMask;
+                // Запись из j можно перенести в gap, если её начальная ячейка не лежит между gap и j
+                if (((j - home) & tableMask) >= ((j - gap) & tableMask)) {
+                    table[gap] = table[j];
+                    gap = j;
+                }
+            }
+            table[gap] = 0;
+        }
+    }
+
+    // Приближённый счётчик частот (count-min sketch): 4 строки 4-битных по смыслу счётчиков
+    // (насыщаются на 15). После 10 * ширина увеличений все счётчики делятся пополам, чтобы
+    // старые частоты не мешали новым ключам
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f};
+
+        private final byte[] counters;
+        private final int width;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            width = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) * 2;
+            counters = new byte[DEPTH * width];
+            sampleSize = 10 * width;
+        }
+
+        void increment(int hash) {
+            for (int row = 0; row < DEPTH; row++) {
+                int index = row * width + index(hash, row);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+        int frequency(int hash) {
+            int min = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, counters[row * width + index(hash, row)]);
+            }
+            return min;
+        }
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 17;
+            return h & (width - 1);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package functions.meta;
+
+import functions.Function;
+
+// Приближение функции на отрезке [a, b] рядом Чебышёва: f(x) ~ sum c[j] T_j(t), t - x, приведённый к [-1, 1].
+// Отрезок можно разбить на равные части со своим рядом на каждой, тогда для гладкой функции
+// хватает невысокой степени даже на длинном отрезке. Коэффициенты вычисляются по значениям
+// в узлах Чебышёва (дискретное косинус-преобразование), значение - по схеме Кленшоу:
+// цикл фиксированной длины без ветвлений, часть выбирается по индексу без поиска.
+// Погрешность измеряется при построении по выборке точек и доступна через getMaxError.
+// Вне [a, b] значение - NaN, как у табулированных функций
+public class ChebyshevApproximation implements Function {
+    // Точек проверки погрешности на каждой части: не меньше MIN_ERROR_SAMPLES и не меньше
+    // ERROR_SAMPLES_PER_TERM на коэффициент
+    private static final int MIN_ERROR_SAMPLES = 64;
+    private static final int ERROR_SAMPLES_PER_TERM = 4;
+
+    private final double left;
+    private final double right;
+    private final int pieces;
+    private final int terms;           // Коэффициентов на часть: степень + 1
+    private final double scale;        // Частей на единицу длины
+    private final double[] coefficients; // Ряды частей подряд, c[0] уже поделён пополам
+    private final double maxError;
+
+    private ChebyshevApproximation(double left, double right, int pieces, int terms, double[] coefficients, double maxError) {
+        this.left = left;
+        this.right = right;
+        this.pieces = pieces;
+        this.terms = terms;
+        this.scale = pieces / (right - left);
+        this.coefficients = coefficients;
+        this.maxError = maxError;
+    }
+
+    // Один ряд степени degree на всём отрезке
+    public static ChebyshevApproximation fit(Function function, double left, double right, int degree) {
+        return fit(function, left, right, degree, 1);
+    }
+    // pieces рядов степени degree на равных частях отрезка
+    public static ChebyshevApproximation fit(Function function, double left, double right, int degree, int pieces) {
+        if (!(left < right) || Double.isInfinite(left) || Double.isInfinite(right)) {
+            throw new IllegalArgumentException("Отрезок должен быть конечным и непустым: [" + left + ", " + right + "]");
+        }
+        if (left < function.getLeftDomainBorder() || right > function.getRightDomainBorder()) {
+            throw new IllegalArgumentException("Отрезок [" + left + ", " + right + "] выходит за область определения функции");
+        }
+        if (degree < 0) {
+            throw new IllegalArgumentException("Степень не может быть отрицательной: " + degree);
+        }
+        if (pieces < 1) {
+            throw new IllegalArgumentException("Количество частей должно быть положительным: " + pieces);
+        }
+        int terms = degree + 1;
+        if ((long) pieces * terms > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Слишком много коэффициентов: " + pieces + " частей степени " + degree);
+        }
+
+        // cos(pi j (k + 1/2) / n) для всех j и k: общая таблица для всех частей
+        double[] cosines = new double[terms * terms];
+        for (int j = 0; j < terms; j++) {
+            for (int k = 0; k < terms; k++) {
+                cosines[j * terms + k] = Math.cos(Math.PI * j * (k + 0.5) / terms);
+            }
+        }
+        double width = (right - left) / pieces;
+        double[] coefficients = new double[pieces * terms];
+        double[] values = new double[terms];
+        for (int p = 0; p < pieces; p++) {
+            double a = left + p * width;
+            double b = p == pieces - 1 ? right : a + width;
+            // Узел k - корень T_n: t = cos(pi (k + 1/2) / n), он же cosines[terms + k]
+            for (int k = 0; k < terms; k++) {
+                double t = terms == 1 ? 0 : cosines[terms + k];
+                double x = (a + b) / 2 + (b - a) / 2 * t;
+                values[k] = function.getFunctionValue(x);
+                if (Double.isNaN(values[k]) || Double.isInfinite(values[k])) {
+                    throw new IllegalArgumentException("Функция не конечна в точке " + x);
+                }
+            }
+            int base = p * terms;
+            for (int j = 0; j < terms; j++) {
+                double sum = 0;
+                for (int k = 0; k < terms; k++) {
+                    sum += values[k] * cosines[j * terms + k];
+                }
+                coefficients[base + j] = 2 * sum / terms;
+            }
+            coefficients[base] /= 2;
+        }
+
+        ChebyshevApproximation approximation = new ChebyshevApproximation(left, right, pieces, terms, coefficients, 0);
+        return new ChebyshevApproximation(left, right, pieces, terms, coefficients,
+                approximation.measureError(function));
+    }
+
+    // Наибольшее отклонение от function на равномерной выборке каждой части, включая её концы
+    private double measureError(Function function) {
+        int samples = Math.max(MIN_ERROR_SAMPLES, ERROR_SAMPLES_PER_TERM * terms);
+        double width = (right - left) / pieces;
+        double max = 0;
+        for (int p = 0; p < pieces; p++) {
+            double a = left + p * width;
+            for (int i = 0; i <= samples; i++) {
+                double x = p == pieces - 1 && i == samples ? right : a + width * i / samples;
+                max = Math.max(max, Math.abs(getFunctionValue(x) - function.getFunctionValue(x)));
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return left;
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return right;
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        if (x < left || x > right)
+            return Double.NaN;
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        // Часть и координата в ней; правый конец отрезка относится к последней части
+        double u = (x - left) * scale;
+        int p = Math.min((int) u, pieces - 1);
+        double t = 2 * (u - p) - 1;
+        int base = p * terms;
+        double t2 = 2 * t;
+        double b1 = 0;
+        double b2 = 0;
+        for (int j = base + terms - 1; j > base; j--) {
+            double b0 = t2 * b1 - b2 + coefficients[j];
+            b2 = b1;
+            b1 = b0;
+        }
+        return t * b1 - b2 + coefficients[base];
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            out[i] = x < left || x > right ? Double.NaN : evaluateUnchecked(x);
+        }
+    }
+
+    public int getDegree() {
+        return terms - 1;
+    }
+    public int getPieceCount() {
+        return pieces;
+    }
+    // Наибольшее измеренное при построении отклонение от исходной функции
+    public double getMaxError() {
+        return maxError;
+    }
+    // Коэффициенты ряда части piece при T_0, ..., T_degree
+    public double[] getCoefficients(int piece) {
+        if (piece < 0 || piece >= pieces) {
+            throw new IndexOutOfBoundsException("Часть: " + piece + ", Количество: " + pieces);
+        }
+        double[] result = new double[terms];
+        System.arraycopy(coefficients, piece * terms, result, 0, terms);
+        return result;
+    }
+}
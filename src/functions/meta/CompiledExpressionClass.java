@@ -0,0 +1,203 @@
+package functions.meta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Байт-код класса, в который ExpressionCompiler помещает дескриптор скомпилированного выражения:
+//
+//   final class CompiledExpression extends ExpressionCompiler.CompiledFunction {
+//       static final MethodHandle HANDLE = ExpressionCompiler.pendingHandle();
+//       public CompiledExpression(Function source, MethodHandle handle) { super(source, handle); }
+//       public double getFunctionValue(double x) { return (double) HANDLE.invokeExact(x); }
+//       public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+//           for (int i = from, to = from + len; i < to; i++) out[i] = (double) HANDLE.invokeExact(xs[i]);
+//       }
+//   }
+//
+// Для каждого выражения определяется свой скрытый класс из этих байтов, так что дескриптор
+// лежит в статическом final поле, которое JIT считает константой, и вызов invokeExact
+// раскрывается вместе со всей цепочкой. Проверяемых исключений в байт-коде нет,
+// поэтому invokeExact не оборачивается в try
+final class CompiledExpressionClass {
+    static final String NAME = "functions/meta/CompiledExpression";
+
+    private static final int CLASS_NAME = 1;
+    private static final int THIS_CLASS = 2;
+    private static final int SUPER_CLASS = 4;
+    private static final int HANDLE_NAME = 5;
+    private static final int HANDLE_TYPE = 6;
+    private static final int HANDLE_FIELD = 8;
+    private static final int INVOKE_EXACT = 14;
+    private static final int PENDING_HANDLE = 20;
+    private static final int SUPER_CONSTRUCTOR = 24;
+    private static final int CONSTRUCTOR_NAME = 21;
+    private static final int CONSTRUCTOR_TYPE = 22;
+    private static final int INITIALIZER_NAME = 25;
+    private static final int VOID_TYPE = 26;
+    private static final int VALUE_NAME = 27;
+    private static final int VALUES_NAME = 28;
+    private static final int VALUES_TYPE = 29;
+    private static final int UNARY_TYPE = 12;
+    private static final int CODE = 30;
+    private static final int STACK_MAP_TABLE = 31;
+    private static final int CONSTANT_POOL_COUNT = 32;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final byte[] BYTES = build();
+
+    private CompiledExpressionClass() {
+        throw new AssertionError("Невозможно создать экземпляр класса CompiledExpressionClass");
+    }
+
+    static byte[] bytes() {
+        return BYTES.clone();
+    }
+
+    private static byte[] build() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52); // Java 8
+
+            // Пул констант; номера записей - константы выше
+            out.writeShort(CONSTANT_POOL_COUNT);
+            utf8(out, NAME);                                                       // 1
+            classEntry(out, CLASS_NAME);                                           // 2
+            utf8(out, "functions/meta/ExpressionCompiler$CompiledFunction");       // 3
+            classEntry(out, 3);                                                    // 4
+            utf8(out, "HANDLE");                                                   // 5
+            utf8(out, "Ljava/lang/invoke/MethodHandle;");                          // 6
+            nameAndType(out, HANDLE_NAME, HANDLE_TYPE);                            // 7
+            reference(out, 9, THIS_CLASS, 7);                                      // 8 Fieldref
+            utf8(out, "java/lang/invoke/MethodHandle");                            // 9
+            classEntry(out, 9);                                                    // 10
+            utf8(out, "invokeExact");                                              // 11
+            utf8(out, "(D)D");                                                     // 12
+            nameAndType(out, 11, UNARY_TYPE);                                      // 13
+            reference(out, 10, 10, 13);                                            // 14 Methodref
+            utf8(out, "functions/meta/ExpressionCompiler");                        // 15
+            classEntry(out, 15);                                                   // 16
+            utf8(out, "pendingHandle");                                            // 17
+            utf8(out, "()Ljava/lang/invoke/MethodHandle;");                        // 18
+            nameAndType(out, 17, 18);                                              // 19
+            reference(out, 10, 16, 19);                                            // 20 Methodref
+            utf8(out, "<init>");                                                   // 21
+            utf8(out, "(Lfunctions/Function;Ljava/lang/invoke/MethodHandle;)V");   // 22
+            nameAndType(out, CONSTRUCTOR_NAME, CONSTRUCTOR_TYPE);                  // 23
+            reference(out, 10, SUPER_CLASS, 23);                                   // 24 Methodref
+            utf8(out, "<clinit>");                                                 // 25
+            utf8(out, "()V");                                                      // 26
+            utf8(out, "getFunctionValue");                                         // 27
+            utf8(out, "getFunctionValues");                                        // 28
+            utf8(out, "([D[DII)V");                                                // 29
+            utf8(out, "Code");                                                     // 30
+            utf8(out, "StackMapTable");                                            // 31
+
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(THIS_CLASS);
+            out.writeShort(SUPER_CLASS);
+            out.writeShort(0); // Интерфейсы наследуются от CompiledFunction
+
+            out.writeShort(1);
+            out.writeShort(ACC_STATIC | ACC_FINAL);
+            out.writeShort(HANDLE_NAME);
+            out.writeShort(HANDLE_TYPE);
+            out.writeShort(0);
+
+            out.writeShort(4);
+            // static { HANDLE = ExpressionCompiler.pendingHandle(); }
+            method(out, ACC_STATIC, INITIALIZER_NAME, VOID_TYPE, 1, 0, new byte[]{
+                    (byte) 0xB8, 0, PENDING_HANDLE, // invokestatic
+                    (byte) 0xB3, 0, HANDLE_FIELD,   // putstatic
+                    (byte) 0xB1                     // return
+            }, null);
+            method(out, ACC_PUBLIC, CONSTRUCTOR_NAME, CONSTRUCTOR_TYPE, 3, 3, new byte[]{
+                    0x2A, 0x2B, 0x2C,                    // aload_0, aload_1, aload_2
+                    (byte) 0xB7, 0, SUPER_CONSTRUCTOR,   // invokespecial
+                    (byte) 0xB1                          // return
+            }, null);
+            method(out, ACC_PUBLIC, VALUE_NAME, UNARY_TYPE, 3, 3, new byte[]{
+                    (byte) 0xB2, 0, HANDLE_FIELD,   // getstatic
+                    0x27,                           // dload_1
+                    (byte) 0xB6, 0, INVOKE_EXACT,   // invokevirtual
+                    (byte) 0xAF                     // dreturn
+            }, null);
+            // Локальные переменные: 1 xs, 2 out, 3 from, 4 len, 5 to, 6 i
+            method(out, ACC_PUBLIC, VALUES_NAME, VALUES_TYPE, 5, 7, new byte[]{
+                    0x1D, 0x15, 4, 0x60, 0x36, 5,   //  0: to = from + len
+                    0x1D, 0x36, 6,                  //  6: i = from
+                    0x15, 6, 0x15, 5,               //  9: i < to
+                    (byte) 0xA2, 0, 23,             // 13: if_icmpge 36
+                    0x2C, 0x15, 6,                  // 16: out, i
+                    (byte) 0xB2, 0, HANDLE_FIELD,   // 19: getstatic
+                    0x2B, 0x15, 6, 0x31,            // 22: xs[i]
+                    (byte) 0xB6, 0, INVOKE_EXACT,   // 26: invokevirtual
+                    0x52,                           // 29: dastore
+                    (byte) 0x84, 6, 1,              // 30: i++
+                    (byte) 0xA7, (byte) 0xFF, (byte) 0xE8, // 33: goto 9
+                    (byte) 0xB1                     // 36: return
+            }, new byte[]{
+                    (byte) 253, 0, 9, 1, 1,         // 9: добавлены to и i типа int
+                    26                              // 36: те же локальные переменные
+            });
+
+            out.writeShort(0);
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void utf8(DataOutputStream out, String value) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(value);
+    }
+    private static void classEntry(DataOutputStream out, int name) throws IOException {
+        out.writeByte(7);
+        out.writeShort(name);
+    }
+    private static void nameAndType(DataOutputStream out, int name, int type) throws IOException {
+        out.writeByte(12);
+        out.writeShort(name);
+        out.writeShort(type);
+    }
+    // tag 9 - Fieldref, 10 - Methodref
+    private static void reference(DataOutputStream out, int tag, int owner, int nameAndType) throws IOException {
+        out.writeByte(tag);
+        out.writeShort(owner);
+        out.writeShort(nameAndType);
+    }
+    private static void method(DataOutputStream out, int access, int name, int type, int maxStack, int maxLocals,
+                               byte[] code, byte[] stackMapFrames) throws IOException {
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(type);
+        out.writeShort(1);
+        out.writeShort(CODE);
+        int attributesLength = stackMapFrames == null ? 0 : 8 + stackMapFrames.length;
+        out.writeInt(12 + code.length + attributesLength);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // Таблица исключений
+        if (stackMapFrames == null) {
+            out.writeShort(0);
+            return;
+        }
+        out.writeShort(1);
+        out.writeShort(STACK_MAP_TABLE);
+        out.writeInt(2 + stackMapFrames.length);
+        out.writeShort(2); // Два кадра: начало и выход из цикла
+        out.write(stackMapFrames);
+    }
+}
@@ -5,19 +5,42 @@ import functions.Function;
 public class Composition implements Function {
     private final Function outer; // внешняя функция
     private final Function inner; // внутренняя функция
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
+    private final boolean fixedOuterDomain; // То же для внешней функции, по ней проверяются значения внутренней
+    private final double outerLeft;
+    private final double outerRight;
 
     public Composition(Function outer, Function inner) {
         this.outer = outer;
         this.inner = inner;
+        this.fixedDomain = Domains.isFixed(inner);
+        this.left = fixedDomain ? inner.getLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? inner.getRightDomainBorder() : Double.NaN;
+        this.fixedOuterDomain = Domains.isFixed(outer);
+        this.outerLeft = fixedOuterDomain ? outer.getLeftDomainBorder() : Double.NaN;
+        this.outerRight = fixedOuterDomain ? outer.getRightDomainBorder() : Double.NaN;
+    }
+
+    // Параметры для упрощения выражений
+    Function getOuter() {
+        return outer;
+    }
+    Function getInner() {
+        return inner;
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
     }
 
     @Override
     public double getLeftDomainBorder() {
-        return inner.getLeftDomainBorder();
+        return fixedDomain ? left : inner.getLeftDomainBorder();
     }
     @Override
     public double getRightDomainBorder() {
-        return inner.getRightDomainBorder();
+        return fixedDomain ? right : inner.getRightDomainBorder();
     }
     @Override
     public double getFunctionValue(double x) {
@@ -26,15 +49,48 @@ public class Composition implements Function {
         if (x < left || x > right) {
             throw new IllegalArgumentException("x = " + x + " находится вне области определения функции [" + left + ", " + right + "]");
         }
-
-        double innerValue = inner.getFunctionValue(x);
-        double outerLeft = outer.getLeftDomainBorder();
-        double outerRight = outer.getRightDomainBorder();
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        // Значение внутренней функции не следует из проверки x, поэтому оно проверяется всегда
+        double innerValue = inner.evaluateUnchecked(x);
+        double outerLeft = getOuterLeftDomainBorder();
+        double outerRight = getOuterRightDomainBorder();
         if (innerValue < outerLeft || innerValue > outerRight) {
             throw new IllegalArgumentException("Значение " + innerValue + " внутренней функции находится вне области определения внешней функции " +
                     "[" + outerLeft + ", " + outerRight + "]");
         }
-        return outer.getFunctionValue(innerValue);
+        return outer.evaluateUnchecked(innerValue);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x = " + xs[i] + " находится вне области определения функции [" + left + ", " + right + "]");
+            }
+        }
+
+        // Значения внутренней функции становятся аргументами внешней, вычисляемой на месте
+        inner.getFunctionValues(xs, out, from, len);
+        double outerLeft = getOuterLeftDomainBorder();
+        double outerRight = getOuterRightDomainBorder();
+        for (int i = from; i < to; i++) {
+            if (out[i] < outerLeft || out[i] > outerRight) {
+                throw new IllegalArgumentException("Значение " + out[i] + " внутренней функции находится вне области определения внешней функции " +
+                        "[" + outerLeft + ", " + outerRight + "]");
+            }
+        }
+        outer.getFunctionValues(out, out, from, len);
+    }
+    private double getOuterLeftDomainBorder() {
+        return fixedOuterDomain ? outerLeft : outer.getLeftDomainBorder();
+    }
+    private double getOuterRightDomainBorder() {
+        return fixedOuterDomain ? outerRight : outer.getRightDomainBorder();
     }
 }
 // h(x) = f(g(x))
\ No newline at end of file
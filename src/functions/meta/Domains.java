@@ -0,0 +1,70 @@
+package functions.meta;
+
+import functions.Function;
+import functions.basic.Cos;
+import functions.basic.Exp;
+import functions.basic.FastCos;
+import functions.basic.FastExp;
+import functions.basic.FastLog;
+import functions.basic.FastSin;
+import functions.basic.FastTan;
+import functions.basic.Log;
+import functions.basic.Sin;
+import functions.basic.Tan;
+
+// Области определения узлов дерева выражения. Если поддерево состоит только из базовых функций
+// и узлов functions.meta, его область определения не меняется и вычисляется один раз при
+// создании узла. Табулированные и неизвестные функции могут менять свои границы,
+// поэтому узлы над ними по-прежнему спрашивают границы при каждом вызове
+final class Domains {
+    private Domains() {
+        throw new AssertionError("Невозможно создать экземпляр класса Domains");
+    }
+
+    static boolean isFixed(Function function) {
+        if (isBasic(function)) {
+            return true;
+        }
+        Class<?> type = function.getClass();
+        if (type == Sum.class) {
+            return ((Sum) function).hasFixedDomain();
+        }
+        if (type == Mult.class) {
+            return ((Mult) function).hasFixedDomain();
+        }
+        if (type == Power.class) {
+            return ((Power) function).hasFixedDomain();
+        }
+        if (type == IntegerPower.class) {
+            return ((IntegerPower) function).hasFixedDomain();
+        }
+        if (type == Shift.class) {
+            return ((Shift) function).hasFixedDomain();
+        }
+        if (type == Scale.class) {
+            return ((Scale) function).hasFixedDomain();
+        }
+        if (type == Affine.class) {
+            return ((Affine) function).hasFixedDomain();
+        }
+        if (type == Composition.class) {
+            return ((Composition) function).hasFixedDomain();
+        }
+        return false;
+    }
+    // Базовая функция из functions.basic: внутри области определения она не выбрасывает исключений
+    static boolean isBasic(Function function) {
+        Class<?> type = function.getClass();
+        return type == Sin.class || type == Cos.class || type == Tan.class || type == Exp.class || type == Log.class
+                || type == FastSin.class || type == FastCos.class || type == FastTan.class || type == FastExp.class
+                || type == FastLog.class;
+    }
+    static boolean isFixed(Function[] functions) {
+        for (Function function : functions) {
+            if (!isFixed(function)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
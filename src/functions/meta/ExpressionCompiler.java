@@ -0,0 +1,340 @@
+package functions.meta;
+
+import functions.Function;
+import functions.basic.Cos;
+import functions.basic.Exp;
+import functions.basic.Sin;
+import functions.basic.Tan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+// Компиляция дерева выражения из functions.basic и functions.meta в одну цепочку MethodHandle.
+// Вместо виртуальных вызовов Function.getFunctionValue через каждый узел получается один дескриптор.
+// JIT раскрывает цепочку в прямолинейный код, только если дескриптор - константа, поэтому для
+// каждого выражения определяется скрытый класс (см. CompiledExpressionClass), где дескриптор лежит
+// в статическом final поле. Скрытые классы появились в Java 15; на более ранних версиях дескриптор
+// хранится в поле объекта, и каждое вычисление - один непрямой вызов скомпилированной цепочки.
+// Значения и исключения совпадают с исходным деревом: операции выполняются в том же порядке,
+// область определения проверяется в корне, а значения внутренних функций - в каждой композиции,
+// как в Function.evaluateUnchecked. Неизвестные реализации Function
+// (в том числе табулированные функции) вызываются как непрозрачные листья, и области
+// определения узлов над ними читаются при каждом вычислении, так как могут меняться
+public final class ExpressionCompiler {
+    private static final MethodType UNARY = MethodType.methodType(double.class, double.class);
+    private static final MethodType BINARY = MethodType.methodType(double.class, double.class, double.class);
+
+    private static final MethodHandle GET_FUNCTION_VALUE;
+    private static final MethodHandle EVALUATE_UNCHECKED;
+    private static final MethodHandle SIN;
+    private static final MethodHandle COS;
+    private static final MethodHandle EXP;
+    private static final MethodHandle TAN;
+    private static final MethodHandle POW;
+    private static final MethodHandle INTEGER_POW;
+    private static final MethodHandle ADD;
+    private static final MethodHandle MULTIPLY;
+    private static final MethodHandle LINEAR;
+    private static final MethodHandle CHECK_ARGUMENT;
+    private static final MethodHandle CHECK_ARGUMENT_DYNAMIC;
+    private static final MethodHandle CHECK_INTERSECTION;
+    private static final MethodHandle CHECK_INTERSECTION_DYNAMIC;
+    private static final MethodHandle CHECK_COMPOSITION;
+    private static final MethodHandle CHECK_COMPOSITION_DYNAMIC;
+    private static final MethodHandle CHECK_INNER_VALUE;
+    private static final MethodHandle CHECK_INNER_VALUE_DYNAMIC;
+
+    // Lookup.defineHiddenClass(byte[], boolean, ClassOption...) и пустой массив параметров, или null до Java 15
+    private static final Method DEFINE_HIDDEN_CLASS;
+    private static final Object NO_CLASS_OPTIONS;
+    // Дескриптор, который читает инициализатор определяемого скрытого класса
+    private static final ThreadLocal<MethodHandle> PENDING_HANDLE = new ThreadLocal<>();
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            GET_FUNCTION_VALUE = lookup.findVirtual(Function.class, "getFunctionValue", UNARY);
+            EVALUATE_UNCHECKED = lookup.findVirtual(Function.class, "evaluateUnchecked", UNARY);
+            SIN = lookup.findStatic(Math.class, "sin", UNARY);
+            COS = lookup.findStatic(Math.class, "cos", UNARY);
+            EXP = lookup.findStatic(Math.class, "exp", UNARY);
+            TAN = lookup.findStatic(ExpressionCompiler.class, "tan", UNARY);
+            POW = lookup.findStatic(Math.class, "pow", BINARY);
+            INTEGER_POW = lookup.findStatic(IntegerPower.class, "pow",
+                    MethodType.methodType(double.class, double.class, int.class));
+            ADD = lookup.findStatic(ExpressionCompiler.class, "add", BINARY);
+            MULTIPLY = lookup.findStatic(ExpressionCompiler.class, "multiply", BINARY);
+            LINEAR = lookup.findStatic(ExpressionCompiler.class, "linear",
+                    MethodType.methodType(double.class, double.class, double.class, double.class));
+
+            MethodType constantCheck = MethodType.methodType(double.class, double.class, double.class, double.class);
+            MethodType dynamicCheck = MethodType.methodType(double.class, Function.class, double.class);
+            CHECK_ARGUMENT = lookup.findStatic(ExpressionCompiler.class, "checkArgument", constantCheck);
+            CHECK_ARGUMENT_DYNAMIC = lookup.findStatic(ExpressionCompiler.class, "checkArgument", dynamicCheck);
+            CHECK_INTERSECTION = lookup.findStatic(ExpressionCompiler.class, "checkIntersection", constantCheck);
+            CHECK_INTERSECTION_DYNAMIC = lookup.findStatic(ExpressionCompiler.class, "checkIntersection", dynamicCheck);
+            CHECK_COMPOSITION = lookup.findStatic(ExpressionCompiler.class, "checkComposition", constantCheck);
+            CHECK_COMPOSITION_DYNAMIC = lookup.findStatic(ExpressionCompiler.class, "checkComposition", dynamicCheck);
+            CHECK_INNER_VALUE = lookup.findStatic(ExpressionCompiler.class, "checkInnerValue", constantCheck);
+            CHECK_INNER_VALUE_DYNAMIC = lookup.findStatic(ExpressionCompiler.class, "checkInnerValue", dynamicCheck);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        Method defineHiddenClass = null;
+        Object noClassOptions = null;
+        try {
+            Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            noClassOptions = Array.newInstance(classOption, 0);
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, noClassOptions.getClass());
+        }
+        catch (ReflectiveOperationException e) {
+            // Скрытых классов нет: дескриптор остаётся в поле объекта
+        }
+        DEFINE_HIDDEN_CLASS = defineHiddenClass;
+        NO_CLASS_OPTIONS = noClassOptions;
+    }
+
+    private ExpressionCompiler() {
+        throw new AssertionError("Невозможно создать экземпляр класса ExpressionCompiler");
+    }
+
+    // Скомпилированная функция: области определения берутся у исходного дерева.
+    // Скрытый класс выражения наследует её и заменяет вычисление значений вызовом константного дескриптора
+    static class CompiledFunction implements Function {
+        private final Function source;
+        private final MethodHandle handle;
+
+        CompiledFunction(Function source, MethodHandle handle) {
+            this.source = source;
+            this.handle = handle;
+        }
+
+        @Override
+        public double getLeftDomainBorder() {
+            return source.getLeftDomainBorder();
+        }
+        @Override
+        public double getRightDomainBorder() {
+            return source.getRightDomainBorder();
+        }
+        @Override
+        public double getFunctionValue(double x) {
+            try {
+                return (double) handle.invokeExact(x);
+            }
+            catch (RuntimeException | Error e) {
+                throw e;
+            }
+            catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        @Override
+        public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+            int to = from + len;
+            try {
+                for (int i = from; i < to; i++) {
+                    out[i] = (double) handle.invokeExact(xs[i]);
+                }
+            }
+            catch (RuntimeException | Error e) {
+                throw e;
+            }
+            catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public static Function compile(Function function) {
+        if (function instanceof CompiledFunction) {
+            return function;
+        }
+        MethodHandle handle = toHandle(function, true);
+        if (DEFINE_HIDDEN_CLASS == null) {
+            return new CompiledFunction(function, handle);
+        }
+        // Класс инициализируется при определении в этом же потоке и забирает дескриптор из PENDING_HANDLE.
+        // Скрытый класс не связан со своим загрузчиком и выгружается вместе с последним экземпляром
+        PENDING_HANDLE.set(handle);
+        try {
+            MethodHandles.Lookup lookup = (MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(),
+                    CompiledExpressionClass.bytes(), true, NO_CLASS_OPTIONS);
+            return (Function) lookup.lookupClass().getConstructor(Function.class, MethodHandle.class)
+                    .newInstance(function, handle);
+        }
+        catch (InvocationTargetException e) {
+            throw new IllegalStateException("Не удалось определить класс скомпилированного выражения", e.getCause());
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось определить класс скомпилированного выражения", e);
+        }
+        finally {
+            PENDING_HANDLE.remove();
+        }
+    }
+    // Вызывается из статического инициализатора скрытого класса
+    static MethodHandle pendingHandle() {
+        return PENDING_HANDLE.get();
+    }
+
+    // Дескриптор вида (double)double, вычисляющий узел вместе с его поддеревом.
+    // Как и в evaluateUnchecked, область определения проверяется только в корне
+    private static MethodHandle toHandle(Function function, boolean checked) {
+        Class<?> type = function.getClass();
+        if (type == Sin.class) {
+            return SIN;
+        }
+        if (type == Cos.class) {
+            return COS;
+        }
+        if (type == Exp.class) {
+            return EXP;
+        }
+        if (type == Tan.class) {
+            return TAN;
+        }
+        if (type == Sum.class || type == Mult.class) {
+            Function[] operands = type == Sum.class ? ((Sum) function).getTerms() : ((Mult) function).getFactors();
+            MethodHandle combiner = type == Sum.class ? ADD : MULTIPLY;
+            // Операнды накапливаются слева направо, как в исходном цикле
+            MethodHandle body = toHandle(operands[0], false);
+            for (int i = 1; i < operands.length; i++) {
+                MethodHandle pair = MethodHandles.filterArguments(combiner, 0, body, toHandle(operands[i], false));
+                body = MethodHandles.permuteArguments(pair, UNARY, 0, 0);
+            }
+            return withCheck(function, checked, body, CHECK_INTERSECTION, CHECK_INTERSECTION_DYNAMIC);
+        }
+        if (type == Power.class) {
+            Power power = (Power) function;
+            MethodHandle body = MethodHandles.filterReturnValue(toHandle(power.getBase(), false),
+                    MethodHandles.insertArguments(POW, 1, power.getExponent()));
+            return withCheck(function, checked, body, CHECK_ARGUMENT, CHECK_ARGUMENT_DYNAMIC);
+        }
+        if (type == IntegerPower.class) {
+            IntegerPower power = (IntegerPower) function;
+            MethodHandle body = MethodHandles.filterReturnValue(toHandle(power.getBase(), false),
+                    MethodHandles.insertArguments(INTEGER_POW, 1, power.getExponent()));
+            return withCheck(function, checked, body, CHECK_ARGUMENT, CHECK_ARGUMENT_DYNAMIC);
+        }
+        if (type == Shift.class) {
+            Shift shift = (Shift) function;
+            MethodHandle body = affineHandle(shift.getFunction(), 1, shift.getShiftX(), 1, shift.getShiftY());
+            return withCheck(function, checked, body, CHECK_ARGUMENT, CHECK_ARGUMENT_DYNAMIC);
+        }
+        if (type == Scale.class) {
+            Scale scale = (Scale) function;
+            MethodHandle body = MethodHandles.filterReturnValue(
+                    MethodHandles.filterArguments(toHandle(scale.getFunction(), false), 0,
+                            MethodHandles.insertArguments(MULTIPLY, 1, scale.getScaleX())),
+                    MethodHandles.insertArguments(MULTIPLY, 0, scale.getScaleY()));
+            return withCheck(function, checked, body, CHECK_ARGUMENT, CHECK_ARGUMENT_DYNAMIC);
+        }
+        if (type == Affine.class) {
+            Affine affine = (Affine) function;
+            MethodHandle body = affineHandle(affine.getFunction(),
+                    affine.getScaleX(), affine.getShiftX(), affine.getScaleY(), affine.getShiftY());
+            return withCheck(function, checked, body, CHECK_ARGUMENT, CHECK_ARGUMENT_DYNAMIC);
+        }
+        if (type == Composition.class) {
+            Composition composition = (Composition) function;
+            Function outer = composition.getOuter();
+            MethodHandle innerValue = MethodHandles.filterReturnValue(toHandle(composition.getInner(), false),
+                    check(outer, CHECK_INNER_VALUE, CHECK_INNER_VALUE_DYNAMIC));
+            MethodHandle body = MethodHandles.filterArguments(toHandle(outer, false), 0, innerValue);
+            return withCheck(function, checked, body, CHECK_COMPOSITION, CHECK_COMPOSITION_DYNAMIC);
+        }
+        // Непрозрачный лист: вызов через интерфейс с постоянным получателем
+        return (checked ? GET_FUNCTION_VALUE : EVALUATE_UNCHECKED).bindTo(function);
+    }
+    // h(x) = shiftY + scaleY * f(scaleX * x + shiftX); единичные коэффициенты не умножаются,
+    // чтобы порядок операций совпадал с Shift
+    private static MethodHandle affineHandle(Function f, double scaleX, double shiftX, double scaleY, double shiftY) {
+        MethodHandle argument = scaleX == 1
+                ? MethodHandles.insertArguments(ADD, 1, shiftX)
+                : MethodHandles.insertArguments(LINEAR, 1, scaleX, shiftX);
+        MethodHandle result = scaleY == 1
+                ? MethodHandles.insertArguments(ADD, 0, shiftY)
+                : MethodHandles.insertArguments(LINEAR, 1, scaleY, shiftY);
+        return MethodHandles.filterReturnValue(MethodHandles.filterArguments(toHandle(f, false), 0, argument), result);
+    }
+    private static MethodHandle withCheck(Function node, boolean checked, MethodHandle body,
+                                          MethodHandle constant, MethodHandle dynamic) {
+        if (!checked) {
+            return body;
+        }
+        return MethodHandles.filterArguments(body, 0, check(node, constant, dynamic));
+    }
+    // Проверка аргумента по области определения узла: границы подставляются константами,
+    // если поддерево не содержит изменяемых листьев, иначе читаются при каждом вызове
+    private static MethodHandle check(Function node, MethodHandle constant, MethodHandle dynamic) {
+        if (Domains.isFixed(node)) {
+            return MethodHandles.insertArguments(constant, 0, node.getLeftDomainBorder(), node.getRightDomainBorder());
+        }
+        return dynamic.bindTo(node);
+    }
+
+    // Элементарные операции, из которых собираются дескрипторы
+    private static double tan(double x) {
+        double cosX = Math.cos(x);
+        if (Math.abs(cosX) <= 1e-14) {
+            return Double.NaN;
+        }
+        return Math.tan(x);
+    }
+    private static double add(double a, double b) {
+        return a + b;
+    }
+    private static double multiply(double a, double b) {
+        return a * b;
+    }
+    private static double linear(double x, double k, double b) {
+        return b + k * x;
+    }
+
+    // Проверки областей определения с теми же сообщениями, что и в узлах дерева
+    private static double checkArgument(double left, double right, double x) {
+        if (x < left || x > right) {
+            throw new IllegalArgumentException("x находится вне области определения функции");
+        }
+        return x;
+    }
+    private static double checkArgument(Function node, double x) {
+        return checkArgument(node.getLeftDomainBorder(), node.getRightDomainBorder(), x);
+    }
+    private static double checkIntersection(double left, double right, double x) {
+        if (left > right) {
+            throw new IllegalArgumentException("Области определения функций не пересекаются");
+        }
+        return checkArgument(left, right, x);
+    }
+    private static double checkIntersection(Function node, double x) {
+        return checkIntersection(node.getLeftDomainBorder(), node.getRightDomainBorder(), x);
+    }
+    private static double checkComposition(double left, double right, double x) {
+        if (x < left || x > right) {
+            throw new IllegalArgumentException("x = " + x + " находится вне области определения функции [" + left + ", " + right + "]");
+        }
+        return x;
+    }
+    private static double checkComposition(Function node, double x) {
+        return checkComposition(node.getLeftDomainBorder(), node.getRightDomainBorder(), x);
+    }
+    private static double checkInnerValue(double outerLeft, double outerRight, double value) {
+        if (value < outerLeft || value > outerRight) {
+            throw new IllegalArgumentException("Значение " + value + " внутренней функции находится вне области определения внешней функции " +
+                    "[" + outerLeft + ", " + outerRight + "]");
+        }
+        return value;
+    }
+    private static double checkInnerValue(Function outer, double value) {
+        return checkInnerValue(outer.getLeftDomainBorder(), outer.getRightDomainBorder(), value);
+    }
+}
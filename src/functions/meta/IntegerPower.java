@@ -0,0 +1,82 @@
+package functions.meta;
+
+import functions.Function;
+
+// Целая степень функции: вместо Math.pow значение возводится в степень повторным умножением
+public class IntegerPower implements Function {
+    private final Function base; // функция основания
+    private final int exponent; // целый показатель степени
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
+
+    public IntegerPower(Function base, int exponent) {
+        this.base = base;
+        this.exponent = exponent;
+        this.fixedDomain = Domains.isFixed(base);
+        this.left = fixedDomain ? base.getLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? base.getRightDomainBorder() : Double.NaN;
+    }
+
+    // Параметры для упрощения выражений
+    Function getBase() {
+        return base;
+    }
+    int getExponent() {
+        return exponent;
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
+    }
+
+    @Override
+    public double getLeftDomainBorder() {
+        return fixedDomain ? left : base.getLeftDomainBorder();
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return fixedDomain ? right : base.getRightDomainBorder();
+    }
+    @Override
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
+            throw new IllegalArgumentException("x находится вне области определения функции");
+        }
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        return pow(base.evaluateUnchecked(x), exponent);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x находится вне области определения функции");
+            }
+        }
+        base.getFunctionValues(xs, out, from, len);
+        for (int i = from; i < to; i++) {
+            out[i] = pow(out[i], exponent);
+        }
+    }
+
+    // Возведение в целую степень двоичным методом: O(log n) умножений
+    static double pow(double value, int exponent) {
+        long n = Math.abs((long) exponent);
+        double result = 1;
+        double factor = value;
+        while (n > 0) {
+            if ((n & 1) != 0) {
+                result *= factor;
+            }
+            factor *= factor;
+            n >>= 1;
+        }
+        return exponent < 0 ? 1 / result : result;
+    }
+}
+// h(x) = [f(x)]^n
@@ -3,21 +3,53 @@ package functions.meta;
 import functions.Function;
 
 public class Mult implements Function {
-    private final Function f1;
-    private final Function f2;
+    private final Function[] factors; // множители, перемножаются слева направо
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
 
     public Mult(Function f1, Function f2) {
-        this.f1 = f1;
-        this.f2 = f2;
+        this(new Function[]{f1, f2});
+    }
+    public Mult(Function... factors) {
+        if (factors.length == 0) {
+            throw new IllegalArgumentException("Произведение должно содержать хотя бы один множитель");
+        }
+        this.factors = factors.clone();
+        this.fixedDomain = Domains.isFixed(this.factors);
+        this.left = fixedDomain ? computeLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? computeRightDomainBorder() : Double.NaN;
+    }
+
+    // Множители для упрощения выражений
+    Function[] getFactors() {
+        return factors.clone();
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
     }
 
     @Override
     public double getLeftDomainBorder() {
-        return Math.max(f1.getLeftDomainBorder(), f2.getLeftDomainBorder());
+        return fixedDomain ? left : computeLeftDomainBorder();
     }
     @Override
     public double getRightDomainBorder() {
-        return Math.min(f1.getRightDomainBorder(), f2.getRightDomainBorder());
+        return fixedDomain ? right : computeRightDomainBorder();
+    }
+    private double computeLeftDomainBorder() {
+        double left = factors[0].getLeftDomainBorder();
+        for (int i = 1; i < factors.length; i++) {
+            left = Math.max(left, factors[i].getLeftDomainBorder());
+        }
+        return left;
+    }
+    private double computeRightDomainBorder() {
+        double right = factors[0].getRightDomainBorder();
+        for (int i = 1; i < factors.length; i++) {
+            right = Math.min(right, factors[i].getRightDomainBorder());
+        }
+        return right;
     }
     @Override
     public double getFunctionValue(double x) {
@@ -30,7 +62,56 @@ public class Mult implements Function {
         if (x < left || x > right) {
             throw new IllegalArgumentException("x находится вне области определения функции");
         }
-        return f1.getFunctionValue(x) * f2.getFunctionValue(x);
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        // Область определения каждого операнда содержит область определения узла
+        double product = factors[0].evaluateUnchecked(x);
+        for (int i = 1; i < factors.length; i++) {
+            product *= factors[i].evaluateUnchecked(x);
+        }
+        return product;
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+
+        if (left > right) {
+            throw new IllegalArgumentException("Области определения функций не пересекаются");
+        }
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x находится вне области определения функции");
+            }
+        }
+        if (factors.length == 1) {
+            factors[0].getFunctionValues(xs, out, from, len);
+            return;
+        }
+        // Пакет считается частями: аргументы части копируются, так как out может совпадать с xs,
+        // остальные множители считаются во временный буфер и умножаются по порядку
+        BatchBuffers buffers = BatchBuffers.get();
+        double[] args = buffers.acquire();
+        double[] values = buffers.acquire();
+        try {
+            for (int start = from; start < to; start += BatchBuffers.CHUNK) {
+                int n = Math.min(BatchBuffers.CHUNK, to - start);
+                System.arraycopy(xs, start, args, 0, n);
+                factors[0].getFunctionValues(xs, out, start, n);
+                for (int k = 1; k < factors.length; k++) {
+                    factors[k].getFunctionValues(args, values, 0, n);
+                    for (int i = 0; i < n; i++) {
+                        out[start + i] *= values[i];
+                    }
+                }
+            }
+        }
+        finally {
+            buffers.release(2);
+        }
     }
 }
-// h(x) = f(x) * g(x)
\ No newline at end of file
+// h(x) = f(x) * g(x)
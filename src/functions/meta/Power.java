@@ -5,26 +5,62 @@ import functions.Function;
 public class Power implements Function {
     private final Function base; // функция основания
     private final double exponent; // функция показателя степени
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
 
     public Power(Function base, double exponent) {
         this.base = base;
         this.exponent = exponent;
+        this.fixedDomain = Domains.isFixed(base);
+        this.left = fixedDomain ? base.getLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? base.getRightDomainBorder() : Double.NaN;
+    }
+
+    // Параметры для упрощения выражений
+    Function getBase() {
+        return base;
+    }
+    double getExponent() {
+        return exponent;
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
     }
 
     @Override
     public double getLeftDomainBorder() {
-        return base.getLeftDomainBorder();
+        return fixedDomain ? left : base.getLeftDomainBorder();
     }
     @Override
     public double getRightDomainBorder() {
-        return base.getRightDomainBorder();
+        return fixedDomain ? right : base.getRightDomainBorder();
     }
     @Override
     public double getFunctionValue(double x) {
         if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
             throw new IllegalArgumentException("x находится вне области определения функции");
         }
-        return Math.pow(base.getFunctionValue(x), exponent);
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        return Math.pow(base.evaluateUnchecked(x), exponent);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x находится вне области определения функции");
+            }
+        }
+        base.getFunctionValues(xs, out, from, len);
+        for (int i = from; i < to; i++) {
+            out[i] = Math.pow(out[i], exponent);
+        }
     }
 }
 // h(x) = [f(x)]^g(x)
\ No newline at end of file
@@ -6,15 +6,42 @@ public class Scale implements Function {
     private final Function f;
     private final double scaleX;
     private final double scaleY;
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
 
     public Scale(Function f, double scaleX, double scaleY) {
         this.f = f;
         this.scaleX = scaleX;
         this.scaleY = scaleY;
+        this.fixedDomain = scaleX != 0 && Domains.isFixed(f);
+        this.left = fixedDomain ? computeLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? computeRightDomainBorder() : Double.NaN;
+    }
+
+    // Параметры для упрощения выражений
+    Function getFunction() {
+        return f;
+    }
+    double getScaleX() {
+        return scaleX;
+    }
+    double getScaleY() {
+        return scaleY;
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
     }
 
     @Override
     public double getLeftDomainBorder() {
+        return fixedDomain ? left : computeLeftDomainBorder();
+    }
+    @Override
+    public double getRightDomainBorder() {
+        return fixedDomain ? right : computeRightDomainBorder();
+    }
+    private double computeLeftDomainBorder() {
         if (scaleX > 0) {
             return f.getLeftDomainBorder() / scaleX;
         }
@@ -25,8 +52,7 @@ public class Scale implements Function {
             throw new IllegalStateException("Коэффициент масштабирования не может быть равен нулю");
         }
     }
-    @Override
-    public double getRightDomainBorder() {
+    private double computeRightDomainBorder() {
         if (scaleX > 0) {
             return f.getRightDomainBorder() / scaleX;
         }
@@ -42,7 +68,30 @@ public class Scale implements Function {
         if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
             throw new IllegalArgumentException("x находится вне области определения функции");
         }
-        return scaleY * f.getFunctionValue(x * scaleX);
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        return scaleY * f.evaluateUnchecked(x * scaleX);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x находится вне области определения функции");
+            }
+        }
+        // Аргументы исходной функции пишутся прямо в out, затем она вычисляется на месте
+        for (int i = from; i < to; i++) {
+            out[i] = xs[i] * scaleX;
+        }
+        f.getFunctionValues(out, out, from, len);
+        for (int i = from; i < to; i++) {
+            out[i] = scaleY * out[i];
+        }
     }
 }
 // h(x) = k * f(m * x)
\ No newline at end of file
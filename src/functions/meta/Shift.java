@@ -6,19 +6,45 @@ public class Shift implements Function {
     private final Function f;
     private final double shiftX;
     private final double shiftY;
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
 
     public Shift(Function f, double shiftX, double shiftY) {
         this.f = f;
         this.shiftX = shiftX;
         this.shiftY = shiftY;
+        this.fixedDomain = Domains.isFixed(f);
+        this.left = fixedDomain ? computeLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? computeRightDomainBorder() : Double.NaN;
+    }
+
+    // Параметры для упрощения выражений
+    Function getFunction() {
+        return f;
+    }
+    double getShiftX() {
+        return shiftX;
+    }
+    double getShiftY() {
+        return shiftY;
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
     }
 
     @Override
     public double getLeftDomainBorder() {
-        return f.getLeftDomainBorder() - shiftX;
+        return fixedDomain ? left : computeLeftDomainBorder();
     }
     @Override
     public double getRightDomainBorder() {
+        return fixedDomain ? right : computeRightDomainBorder();
+    }
+    private double computeLeftDomainBorder() {
+        return f.getLeftDomainBorder() - shiftX;
+    }
+    private double computeRightDomainBorder() {
         return f.getRightDomainBorder() - shiftX;
     }
     @Override
@@ -26,7 +52,30 @@ public class Shift implements Function {
         if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
             throw new IllegalArgumentException("x находится вне области определения функции");
         }
-        return shiftY + f.getFunctionValue(x + shiftX);
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        return shiftY + f.evaluateUnchecked(x + shiftX);
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x находится вне области определения функции");
+            }
+        }
+        // Аргументы исходной функции пишутся прямо в out, затем она вычисляется на месте
+        for (int i = from; i < to; i++) {
+            out[i] = xs[i] + shiftX;
+        }
+        f.getFunctionValues(out, out, from, len);
+        for (int i = from; i < to; i++) {
+            out[i] = shiftY + out[i];
+        }
     }
 }
 // h(x) = k + f(x + c)
\ No newline at end of file
@@ -0,0 +1,284 @@
+package functions.meta;
+
+import functions.Function;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Упрощение дерева выражения из functions.meta в равносильное, которое вычисляется быстрее:
+// - цепочки Shift/Scale сворачиваются в один узел Affine;
+// - целые степени (в том числе степень от целой степени) заменяются на IntegerPower;
+// - вложенные Sum и Mult разворачиваются в один n-арный узел;
+// - постоянные слагаемые и множители вида f^0 = 1 убираются, если это не меняет область определения
+//   и вычисление f не может выбросить исключение внутри неё (f - базовая функция или Shift, Scale
+//   и Affine над ней). Иначе, например у композиции, проверяющей значение внутренней функции,
+//   убранный множитель унёс бы с собой исключение исходного дерева.
+// Области определения и исключения за их пределами сохраняются, значения могут отличаться
+// в последних разрядах из-за другого порядка округлений
+public class Simplifier {
+    private static final int MAX_INTEGER_EXPONENT = 64; // Наибольшая степень, вычисляемая умножением
+
+    private int eliminatedNodes; // Сколько узлов убрано за все вызовы simplify
+
+    public Function simplify(Function function) {
+        Function result = rewrite(function);
+        eliminatedNodes += countNodes(function) - countNodes(result);
+        return result;
+    }
+    public int getEliminatedNodes() {
+        return eliminatedNodes;
+    }
+
+    // Количество узлов дерева; неизвестные функции считаются одним узлом
+    public static int countNodes(Function function) {
+        if (function instanceof Sum) {
+            return 1 + countNodes(((Sum) function).getTerms());
+        }
+        if (function instanceof Mult) {
+            return 1 + countNodes(((Mult) function).getFactors());
+        }
+        if (function instanceof Power) {
+            return 1 + countNodes(((Power) function).getBase());
+        }
+        if (function instanceof IntegerPower) {
+            return 1 + countNodes(((IntegerPower) function).getBase());
+        }
+        if (function instanceof Shift) {
+            return 1 + countNodes(((Shift) function).getFunction());
+        }
+        if (function instanceof Scale) {
+            return 1 + countNodes(((Scale) function).getFunction());
+        }
+        if (function instanceof Affine) {
+            return 1 + countNodes(((Affine) function).getFunction());
+        }
+        if (function instanceof Composition) {
+            Composition composition = (Composition) function;
+            return 1 + countNodes(composition.getOuter()) + countNodes(composition.getInner());
+        }
+        return 1;
+    }
+    private static int countNodes(Function[] functions) {
+        int count = 0;
+        for (Function function : functions) {
+            count += countNodes(function);
+        }
+        return count;
+    }
+
+    private Function rewrite(Function function) {
+        if (function instanceof Sum) {
+            return rewriteSum((Sum) function);
+        }
+        if (function instanceof Mult) {
+            return rewriteMult((Mult) function);
+        }
+        if (function instanceof Power) {
+            Power power = (Power) function;
+            return rewritePower(power, power.getBase(), power.getExponent());
+        }
+        if (function instanceof IntegerPower) {
+            IntegerPower power = (IntegerPower) function;
+            return rewritePower(power, power.getBase(), power.getExponent());
+        }
+        if (function instanceof Shift || function instanceof Scale || function instanceof Affine) {
+            return rewriteAffine(function);
+        }
+        if (function instanceof Composition) {
+            Composition composition = (Composition) function;
+            Function outer = rewrite(composition.getOuter());
+            Function inner = rewrite(composition.getInner());
+            if (outer == composition.getOuter() && inner == composition.getInner()) {
+                return composition;
+            }
+            return new Composition(outer, inner);
+        }
+        // Базовые, табулированные и неизвестные функции не упрощаются
+        return function;
+    }
+
+    private Function rewriteSum(Sum sum) {
+        List<Function> terms = new ArrayList<>();
+        List<Function> constants = new ArrayList<>();
+        for (Function term : sum.getTerms()) {
+            term = rewrite(term);
+            if (term instanceof Sum) {
+                // Сумма уже упрощена, её слагаемые переносятся в общую сумму
+                for (Function inner : ((Sum) term).getTerms()) {
+                    (isUnit(inner) ? constants : terms).add(inner);
+                }
+            }
+            else {
+                (isUnit(term) ? constants : terms).add(term);
+            }
+        }
+        // Постоянные слагаемые выносятся в сдвиг, если их области определения не сужают сумму
+        if (!constants.isEmpty() && !terms.isEmpty() && coversDomain(constants, terms)) {
+            Function rest = terms.size() == 1 ? terms.get(0) : new Sum(terms.toArray(new Function[0]));
+            return new Affine(rest, 1, 0, 1, constants.size());
+        }
+        terms.addAll(constants);
+        return new Sum(terms.toArray(new Function[0]));
+    }
+    private Function rewriteMult(Mult mult) {
+        List<Function> factors = new ArrayList<>();
+        List<Function> constants = new ArrayList<>();
+        for (Function factor : mult.getFactors()) {
+            factor = rewrite(factor);
+            if (factor instanceof Mult) {
+                // Произведение уже упрощено, его множители переносятся в общее произведение
+                for (Function inner : ((Mult) factor).getFactors()) {
+                    (isUnit(inner) ? constants : factors).add(inner);
+                }
+            }
+            else {
+                (isUnit(factor) ? constants : factors).add(factor);
+            }
+        }
+        // Множители, равные единице, убираются, если их области определения не сужают произведение
+        if (!constants.isEmpty() && !factors.isEmpty() && coversDomain(constants, factors)) {
+            return new Mult(factors.toArray(new Function[0]));
+        }
+        factors.addAll(constants);
+        return new Mult(factors.toArray(new Function[0]));
+    }
+    private Function rewritePower(Function original, Function base, double exponent) {
+        Function newBase = rewrite(base);
+        if (!isSmallInteger(exponent)) {
+            return newBase == base && original instanceof Power ? original : new Power(newBase, exponent);
+        }
+        int n = (int) exponent;
+        // (f^p)^q = f^(p*q) для целых p и q
+        if (newBase instanceof IntegerPower) {
+            IntegerPower inner = (IntegerPower) newBase;
+            long combined = (long) inner.getExponent() * n;
+            if (Math.abs(combined) <= MAX_INTEGER_EXPONENT) {
+                return new IntegerPower(inner.getBase(), (int) combined);
+            }
+        }
+        return newBase == base && original instanceof IntegerPower ? original : new IntegerPower(newBase, n);
+    }
+    // Shift, Scale и Affine представляются как h(x) = shiftY + scaleY * f(scaleX * x + shiftX),
+    // и вложенные преобразования перемножаются
+    private Function rewriteAffine(Function function) {
+        double scaleX;
+        double shiftX;
+        double scaleY;
+        double shiftY;
+        Function child;
+        if (function instanceof Shift) {
+            Shift shift = (Shift) function;
+            scaleX = 1;
+            shiftX = shift.getShiftX();
+            scaleY = 1;
+            shiftY = shift.getShiftY();
+            child = shift.getFunction();
+        }
+        else if (function instanceof Scale) {
+            Scale scale = (Scale) function;
+            scaleX = scale.getScaleX();
+            shiftX = 0;
+            scaleY = scale.getScaleY();
+            shiftY = 0;
+            child = scale.getFunction();
+        }
+        else {
+            Affine affine = (Affine) function;
+            scaleX = affine.getScaleX();
+            shiftX = affine.getShiftX();
+            scaleY = affine.getScaleY();
+            shiftY = affine.getShiftY();
+            child = affine.getFunction();
+        }
+
+        Function newChild = rewrite(child);
+        // Нулевой коэффициент по X оставляется как есть, чтобы сохранить исключение при вычислении
+        Affine inner = scaleX != 0 ? toAffine(newChild) : null;
+        if (inner != null) {
+            return new Affine(inner.getFunction(),
+                    scaleX * inner.getScaleX(),
+                    inner.getScaleX() * shiftX + inner.getShiftX(),
+                    scaleY * inner.getScaleY(),
+                    shiftY + scaleY * inner.getShiftY());
+        }
+        // Одиночное преобразование над неупрощаемым деревом оставляется как было
+        return newChild == child ? function : rebuildAffine(function, newChild);
+    }
+    // Shift, Scale или Affine в виде Affine; null, если функция другая или коэффициент по X нулевой
+    private static Affine toAffine(Function function) {
+        if (function instanceof Affine) {
+            return (Affine) function;
+        }
+        if (function instanceof Shift) {
+            Shift shift = (Shift) function;
+            return new Affine(shift.getFunction(), 1, shift.getShiftX(), 1, shift.getShiftY());
+        }
+        if (function instanceof Scale && ((Scale) function).getScaleX() != 0) {
+            Scale scale = (Scale) function;
+            return new Affine(scale.getFunction(), scale.getScaleX(), 0, scale.getScaleY(), 0);
+        }
+        return null;
+    }
+    private static Function rebuildAffine(Function function, Function child) {
+        if (function instanceof Shift) {
+            Shift shift = (Shift) function;
+            return new Shift(child, shift.getShiftX(), shift.getShiftY());
+        }
+        if (function instanceof Scale) {
+            Scale scale = (Scale) function;
+            return new Scale(child, scale.getScaleX(), scale.getScaleY());
+        }
+        Affine affine = (Affine) function;
+        return new Affine(child, affine.getScaleX(), affine.getShiftX(), affine.getScaleY(), affine.getShiftY());
+    }
+
+    // Постоянная функция f^0 = 1, которую можно убрать без потери исключений
+    private static boolean isUnit(Function function) {
+        if (!(function instanceof IntegerPower)) {
+            return false;
+        }
+        IntegerPower power = (IntegerPower) function;
+        return power.getExponent() == 0 && throwsOnlyOutsideDomain(power.getBase());
+    }
+    // Базовая функция или цепочка Shift, Scale и Affine над ней
+    private static boolean throwsOnlyOutsideDomain(Function function) {
+        while (true) {
+            if (function instanceof Shift) {
+                function = ((Shift) function).getFunction();
+            }
+            else if (function instanceof Scale) {
+                function = ((Scale) function).getFunction();
+            }
+            else if (function instanceof Affine) {
+                function = ((Affine) function).getFunction();
+            }
+            else {
+                return Domains.isBasic(function);
+            }
+        }
+    }
+    private static boolean isSmallInteger(double exponent) {
+        return exponent == Math.rint(exponent) && Math.abs(exponent) <= MAX_INTEGER_EXPONENT;
+    }
+    // Содержит ли область определения каждой постоянной функции пересечение областей остальных.
+    // Если область определения не вычисляется (Scale с нулевым коэффициентом), дерево не меняется
+    private static boolean coversDomain(List<Function> constants, List<Function> others) {
+        double left = Double.NEGATIVE_INFINITY;
+        double right = Double.POSITIVE_INFINITY;
+        try {
+            for (Function other : others) {
+                left = Math.max(left, other.getLeftDomainBorder());
+                right = Math.min(right, other.getRightDomainBorder());
+            }
+            for (Function constant : constants) {
+                if (constant.getLeftDomainBorder() > left || constant.getRightDomainBorder() < right) {
+                    return false;
+                }
+            }
+        }
+        catch (IllegalStateException e) {
+            return false;
+        }
+        return true;
+    }
+}
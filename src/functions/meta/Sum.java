@@ -3,21 +3,53 @@ package functions.meta;
 import functions.Function;
 
 public class Sum implements Function {
-    private final Function f1;
-    private final Function f2;
+    private final Function[] terms; // слагаемые, суммируются слева направо
+    private final boolean fixedDomain; // Область определения не меняется и вычислена в конструкторе
+    private final double left;
+    private final double right;
 
     public Sum(Function f1, Function f2) {
-        this.f1 = f1;
-        this.f2 = f2;
+        this(new Function[]{f1, f2});
+    }
+    public Sum(Function... terms) {
+        if (terms.length == 0) {
+            throw new IllegalArgumentException("Сумма должна содержать хотя бы одно слагаемое");
+        }
+        this.terms = terms.clone();
+        this.fixedDomain = Domains.isFixed(this.terms);
+        this.left = fixedDomain ? computeLeftDomainBorder() : Double.NaN;
+        this.right = fixedDomain ? computeRightDomainBorder() : Double.NaN;
+    }
+
+    // Слагаемые для упрощения выражений
+    Function[] getTerms() {
+        return terms.clone();
+    }
+    boolean hasFixedDomain() {
+        return fixedDomain;
     }
 
     @Override
     public double getLeftDomainBorder() {
-        return Math.max(f1.getLeftDomainBorder(), f2.getLeftDomainBorder());
+        return fixedDomain ? left : computeLeftDomainBorder();
     }
     @Override
     public double getRightDomainBorder() {
-        return Math.min(f1.getRightDomainBorder(), f2.getRightDomainBorder());
+        return fixedDomain ? right : computeRightDomainBorder();
+    }
+    private double computeLeftDomainBorder() {
+        double left = terms[0].getLeftDomainBorder();
+        for (int i = 1; i < terms.length; i++) {
+            left = Math.max(left, terms[i].getLeftDomainBorder());
+        }
+        return left;
+    }
+    private double computeRightDomainBorder() {
+        double right = terms[0].getRightDomainBorder();
+        for (int i = 1; i < terms.length; i++) {
+            right = Math.min(right, terms[i].getRightDomainBorder());
+        }
+        return right;
     }
     @Override
     public double getFunctionValue(double x) {
@@ -30,7 +62,56 @@ public class Sum implements Function {
         if (x < left || x > right) {
             throw new IllegalArgumentException("x находится вне области определения функции");
         }
-        return f1.getFunctionValue(x) + f2.getFunctionValue(x);
+        return evaluateUnchecked(x);
+    }
+    @Override
+    public double evaluateUnchecked(double x) {
+        // Область определения каждого операнда содержит область определения узла
+        double sum = terms[0].evaluateUnchecked(x);
+        for (int i = 1; i < terms.length; i++) {
+            sum += terms[i].evaluateUnchecked(x);
+        }
+        return sum;
+    }
+    @Override
+    public void getFunctionValues(double[] xs, double[] out, int from, int len) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+
+        if (left > right) {
+            throw new IllegalArgumentException("Области определения функций не пересекаются");
+        }
+        int to = from + len;
+        for (int i = from; i < to; i++) {
+            if (xs[i] < left || xs[i] > right) {
+                throw new IllegalArgumentException("x находится вне области определения функции");
+            }
+        }
+        if (terms.length == 1) {
+            terms[0].getFunctionValues(xs, out, from, len);
+            return;
+        }
+        // Пакет считается частями: аргументы части копируются, так как out может совпадать с xs,
+        // остальные слагаемые считаются во временный буфер и прибавляются по порядку
+        BatchBuffers buffers = BatchBuffers.get();
+        double[] args = buffers.acquire();
+        double[] values = buffers.acquire();
+        try {
+            for (int start = from; start < to; start += BatchBuffers.CHUNK) {
+                int n = Math.min(BatchBuffers.CHUNK, to - start);
+                System.arraycopy(xs, start, args, 0, n);
+                terms[0].getFunctionValues(xs, out, start, n);
+                for (int k = 1; k < terms.length; k++) {
+                    terms[k].getFunctionValues(args, values, 0, n);
+                    for (int i = 0; i < n; i++) {
+                        out[start + i] += values[i];
+                    }
+                }
+            }
+        }
+        finally {
+            buffers.release(2);
+        }
     }
 }
-//h(x) = f(x) + g(x)
\ No newline at end of file
+//h(x) = f(x) + g(x)